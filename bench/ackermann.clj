@@ -0,0 +1,13 @@
+;; Call throughput: Ackermann function, deep non-tail recursion with a tiny body.
+
+(def ack
+  (fn* ([m n]
+        (if (zero? m)
+          (inc n)
+          (if (zero? n)
+            (ack (dec m) 1)
+            (ack (dec m) (ack m (dec n))))))))
+
+(def bench (fn* ([] (ack 2 200))))
+
+(bench)
@@ -0,0 +1,11 @@
+;; Call throughput: doubly recursive Fibonacci.
+
+(def fib
+  (fn* ([n]
+        (if (< n 2)
+          n
+          (+ (fib (- n 1)) (fib (- n 2)))))))
+
+(def bench (fn* ([] (fib 20))))
+
+(bench)
@@ -0,0 +1,23 @@
+;; Calls of tiny accessor-style fns, which `-Dpolyglot.coiffure.InlineSize=20` inlines. Only code analyzed after the
+;; defs have been evaluated can inline them, which `bench` is not (the whole file is analyzed first), so to compare pass
+;; its loop as the EXPR:
+;;
+;;     java -Dpolyglot.coiffure.InlineSize=20 ... CoiffureBench bench/inline.clj \
+;;         "(loop [i 0 acc 0] (if (< i 100000) (recur (inc i) (+ acc (norm1 (. points (nth (. clojure.lang.Numbers (remainder i 3))))))) acc))"
+
+(def point-x (fn* ([p] (:x p))))
+
+(def point-y (fn* ([p] (:y p))))
+
+(def norm1 (fn* ([p] (+ (point-x p) (point-y p)))))
+
+(def points [{:x 1 :y 2} {:x 3 :y 4} {:x 5 :y 6}])
+
+(def bench
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 100000)
+            (recur (inc i) (+ acc (norm1 (. points (nth (. clojure.lang.Numbers (remainder i 3)))))))
+            acc)))))
+
+(bench)
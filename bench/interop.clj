@@ -0,0 +1,26 @@
+;; Java interop: instance method calls on Strings and collections, including an overloaded method (`indexOf`).
+
+(def count-bs
+  (fn* ([strs]
+        (loop [i 0 acc 0]
+          (if (< i (. strs (size)))
+            (let* [s (. strs (get i))]
+              (recur (inc i) (if (< (. s (indexOf "b")) 0) acc (+ acc (. s (length))))))
+            acc)))))
+
+(def strs
+  (let* [strs (new java.util.ArrayList)]
+    (. strs (add "abc"))
+    (. strs (add "xyz"))
+    (. strs (add "bbbbbb"))
+    (. strs (add ""))
+    strs))
+
+(def bench
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 10000)
+            (recur (inc i) (+ acc (count-bs strs)))
+            acc)))))
+
+(bench)
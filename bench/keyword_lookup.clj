@@ -0,0 +1,14 @@
+;; Keyword-as-function lookups (`(:k m)`) on small (array) and large (hash) map literals.
+
+(def small {:id 1 :name "x" :score 3})
+
+(def large {:a 1 :b 2 :c 3 :d 4 :e 5 :f 6 :g 7 :h 8 :i 9 :score 10})
+
+(def bench
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 100000)
+            (recur (inc i) (+ acc (+ (:score small) (+ (:score large) (:missing small 0)))))
+            acc)))))
+
+(bench)
@@ -0,0 +1,19 @@
+;; A hot fn with a local helper fn that closes over one of its locals. The helper never escapes, so it is lambda-lifted
+;; and the calls of `scaled-sum` allocate no closures.
+
+(def scaled-sum
+  (fn* ([n k]
+        (let* [scale (fn* ([x] (* x k)))]
+          (loop [i 0 acc 0]
+            (if (< i n)
+              (recur (inc i) (+ acc (scale i)))
+              acc))))))
+
+(def bench
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 10000)
+            (recur (inc i) (+ acc (scaled-sum 10 i)))
+            acc)))))
+
+(bench)
@@ -0,0 +1,19 @@
+;; Map literals with constant keys and computed values: small ones (array maps, `(bench)`) and large ones (hash maps,
+;; `(bench-large)`).
+
+(def bench
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 100000)
+            (recur (inc i) (+ acc (:id {:status 200 :id i :body "ok"})))
+            acc)))))
+
+(def bench-large
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 100000)
+            (recur (inc i) (+ acc (:j {:a i :b 2 :c 3 :d 4 :e 5 :f 6 :g 7 :h 8 :i 9 :j i})))
+            acc)))))
+
+(bench)
+(bench-large)
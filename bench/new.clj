@@ -0,0 +1,13 @@
+;; Java interop: constructor calls in a tight loop, including an overloaded constructor (`ArrayList`).
+
+(def bench
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 10000)
+            (let* [sb (java.lang.StringBuilder.)
+                   xs (java.util.ArrayList. 4)]
+              (. xs (add sb))
+              (recur (inc i) (+ acc (. xs (size)))))
+            acc)))))
+
+(bench)
@@ -0,0 +1,17 @@
+;; On-stack replacement: long-running `loop`s in a fn method and in a top-level form. Each runs only a few times, so
+;; they can only get compiled early through OSR. To check that they do, run on GraalVM with
+;; `-Dpolyglot.engine.TraceCompilation=true` and look for the OSR compilations (`<OSR@...>`) of both loops.
+
+(def count-up
+  (fn* ([n]
+        (loop [i 0]
+          (if (< i n)
+            (recur (inc i))
+            i)))))
+
+(def bench (fn* ([] (count-up 10000000))))
+
+(loop [i 0]
+  (if (< i 10000000)
+    (recur (inc i))
+    i))
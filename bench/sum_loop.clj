@@ -0,0 +1,14 @@
+;; Unboxed locals and arithmetic: sums 0..n-1 in a `loop`/`recur` kernel.
+;; `i` and `acc` stay in long frame slots and `<`, `inc` and `+` compile to long-specialized nodes, so steady-state
+;; iterations should not allocate (compare the allocated bytes per iteration to `n`).
+
+(def sum-to
+  (fn* ([n]
+        (loop [i 0 acc 0]
+          (if (< i n)
+            (recur (inc i) (+ acc i))
+            acc)))))
+
+(def bench (fn* ([] (sum-to 100000))))
+
+(bench)
@@ -0,0 +1,27 @@
+;; `interop.clj` with type hints: the interop calls are resolved at analysis time (so they need no inline cache warmup
+;; and do no run-time overload selection) and the `^long` loop counters stay unboxed.
+
+(def count-bs
+  (fn* ([^java.util.List strs]
+        (loop [^long i 0 ^long acc 0]
+          (if (< i (. strs (size)))
+            (let* [^String s (. strs (get i))]
+              (recur (inc i) (if (< (. s (indexOf "b")) 0) acc (+ acc (. s (length))))))
+            acc)))))
+
+(def strs
+  (let* [strs (new java.util.ArrayList)]
+    (. strs (add "abc"))
+    (. strs (add "xyz"))
+    (. strs (add "bbbbbb"))
+    (. strs (add ""))
+    strs))
+
+(def bench
+  (fn* ([]
+        (loop [^long i 0 ^long acc 0]
+          (if (< i 10000)
+            (recur (inc i) (+ acc (count-bs strs)))
+            acc)))))
+
+(bench)
@@ -0,0 +1,27 @@
+;; Calls to a variadic fn, directly (`(bench)`) and through `apply` on a vector (`(bench-apply)`).
+
+(def count-args
+  (fn* ([n & more]
+        (loop [acc n more more]
+          (if more
+            (recur (inc acc) (next more))
+            acc)))))
+
+(def bench
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 100000)
+            (recur (inc i) (+ acc (count-args 0 :a :b :c)))
+            acc)))))
+
+(def args [0 :a :b :c])
+
+(def bench-apply
+  (fn* ([]
+        (loop [i 0 acc 0]
+          (if (< i 100000)
+            (recur (inc i) (+ acc (apply count-args args)))
+            acc)))))
+
+(bench)
+(bench-apply)
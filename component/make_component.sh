@@ -52,22 +52,22 @@ else
 fi
 readonly COMPONENT_DIR="component_temp_dir"
 readonly LANGUAGE_PATH="$COMPONENT_DIR/$JRE/languages/sl"
-if [[ -f ../native/slnative ]]; then
-    INCLUDE_SLNATIVE="TRUE"
+if [[ -f ../native/coiffurenative ]]; then
+    INCLUDE_COIFFURENATIVE="TRUE"
 fi
 
 rm -rf COMPONENT_DIR
 
 mkdir -p "$LANGUAGE_PATH"
-cp ../language/target/simplelanguage.jar "$LANGUAGE_PATH"
+cp ../language/target/coiffure.jar "$LANGUAGE_PATH"
 
 mkdir -p "$LANGUAGE_PATH/launcher"
 cp ../launcher/target/sl-launcher.jar "$LANGUAGE_PATH/launcher/"
 
 mkdir -p "$LANGUAGE_PATH/bin"
 cp ../sl $LANGUAGE_PATH/bin/
-if [[ $INCLUDE_SLNATIVE = "TRUE" ]]; then
-    cp ../native/slnative $LANGUAGE_PATH/bin/
+if [[ $INCLUDE_COIFFURENATIVE = "TRUE" ]]; then
+    cp ../native/coiffurenative $LANGUAGE_PATH/bin/
 fi
 
 touch "$LANGUAGE_PATH/native-image.properties"
@@ -86,14 +86,14 @@ cd $COMPONENT_DIR || exit 1
 jar cfm ../sl-component.jar META-INF/MANIFEST.MF .
 
 echo "bin/sl = ../$JRE/languages/sl/bin/sl" > META-INF/symlinks
-if [[ $INCLUDE_SLNATIVE = "TRUE" ]]; then
-    echo "bin/slnative = ../$JRE/languages/sl/bin/slnative" >> META-INF/symlinks
+if [[ $INCLUDE_COIFFURENATIVE = "TRUE" ]]; then
+    echo "bin/coiffurenative = ../$JRE/languages/sl/bin/coiffurenative" >> META-INF/symlinks
 fi
 jar uf ../sl-component.jar META-INF/symlinks
 
 {
     echo "$JRE"'languages/sl/bin/sl = rwxrwxr-x'
-    echo "$JRE"'languages/sl/bin/slnative = rwxrwxr-x'
+    echo "$JRE"'languages/sl/bin/coiffurenative = rwxrwxr-x'
 } > META-INF/permissions
 jar uf ../sl-component.jar META-INF/permissions
 )
@@ -12,3 +12,162 @@
 
 (def unquote)
 (def unquote-splicing)
+
+(def first (fn* ([coll] (. clojure.lang.RT (first coll)))))
+
+(def next (fn* ([coll] (. clojure.lang.RT (next coll)))))
+
+(def cons (fn* ([x seq] (. clojure.lang.RT (cons x seq)))))
+
+(def seq (fn* ([coll] (. clojure.lang.RT (seq coll)))))
+
+;;;; # Functions
+
+;; `(spread [a b [c d]])` => `(a b c d)`:
+(def spread
+  (fn* ([arglist]
+        (if (next arglist)
+          (cons (first arglist) (spread (next arglist)))
+          (seq (first arglist))))))
+
+;; A realized (counted) arg seq is spread into the call arguments with one copy, see `Closure.applyTo`.
+(def apply
+  (fn* ([f args] (. f (applyTo (seq args))))
+       ([f x & args] (. f (applyTo (cons x (spread args)))))))
+
+;;;; # Numbers
+
+;; Calls to these with a fixed number of args compile to dedicated nodes instead (see `Intrinsics`), so the
+;; fns are only used for the other arities and as values.
+
+(def +
+  (fn* ([] 0)
+       ([x] (. clojure.lang.Numbers (num x)))
+       ([x y] (+ x y))
+       ([x y & more]
+        (loop [acc (+ x y) more more]
+          (if more
+            (recur (+ acc (first more)) (next more))
+            acc)))))
+
+(def +'
+  (fn* ([] 0)
+       ([x] (. clojure.lang.Numbers (num x)))
+       ([x y] (+' x y))
+       ([x y & more]
+        (loop [acc (+' x y) more more]
+          (if more
+            (recur (+' acc (first more)) (next more))
+            acc)))))
+
+(def *
+  (fn* ([] 1)
+       ([x] (. clojure.lang.Numbers (num x)))
+       ([x y] (* x y))
+       ([x y & more]
+        (loop [acc (* x y) more more]
+          (if more
+            (recur (* acc (first more)) (next more))
+            acc)))))
+
+(def *'
+  (fn* ([] 1)
+       ([x] (. clojure.lang.Numbers (num x)))
+       ([x y] (*' x y))
+       ([x y & more]
+        (loop [acc (*' x y) more more]
+          (if more
+            (recur (*' acc (first more)) (next more))
+            acc)))))
+
+(def -
+  (fn* ([x] (- x))
+       ([x y] (- x y))
+       ([x y & more]
+        (loop [acc (- x y) more more]
+          (if more
+            (recur (- acc (first more)) (next more))
+            acc)))))
+
+(def -'
+  (fn* ([x] (-' x))
+       ([x y] (-' x y))
+       ([x y & more]
+        (loop [acc (-' x y) more more]
+          (if more
+            (recur (-' acc (first more)) (next more))
+            acc)))))
+
+(def inc (fn* ([x] (inc x))))
+
+(def inc' (fn* ([x] (inc' x))))
+
+(def dec (fn* ([x] (dec x))))
+
+(def dec' (fn* ([x] (dec' x))))
+
+(def zero? (fn* ([x] (zero? x))))
+
+(def pos? (fn* ([x] (pos? x))))
+
+(def neg? (fn* ([x] (neg? x))))
+
+(def =
+  (fn* ([x] true)
+       ([x y] (= x y))
+       ([x y & more]
+        (if (= x y)
+          (if (next more)
+            (recur y (first more) (next more))
+            (= y (first more)))
+          false))))
+
+(def ==
+  (fn* ([x] true)
+       ([x y] (== x y))
+       ([x y & more]
+        (if (== x y)
+          (if (next more)
+            (recur y (first more) (next more))
+            (== y (first more)))
+          false))))
+
+(def <
+  (fn* ([x] true)
+       ([x y] (< x y))
+       ([x y & more]
+        (if (< x y)
+          (if (next more)
+            (recur y (first more) (next more))
+            (< y (first more)))
+          false))))
+
+(def <=
+  (fn* ([x] true)
+       ([x y] (<= x y))
+       ([x y & more]
+        (if (<= x y)
+          (if (next more)
+            (recur y (first more) (next more))
+            (<= y (first more)))
+          false))))
+
+(def >
+  (fn* ([x] true)
+       ([x y] (> x y))
+       ([x y & more]
+        (if (> x y)
+          (if (next more)
+            (recur y (first more) (next more))
+            (> y (first more)))
+          false))))
+
+(def >=
+  (fn* ([x] true)
+       ([x y] (>= x y))
+       ([x y & more]
+        (if (>= x y)
+          (if (next more)
+            (recur y (first more) (next more))
+            (>= y (first more)))
+          false))))
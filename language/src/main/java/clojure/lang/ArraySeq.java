@@ -29,6 +29,13 @@ static public ArraySeq create(Object... array){
 	return new ArraySeq(array, 0);
 }
 
+// HACK(nilern): So that coiffure rest params can view the tail of the call arguments array without copying it:
+static public ArraySeq createTail(Object[] array, int i){
+	if(array == null || i >= array.length)
+		return null;
+	return new ArraySeq(array, i);
+}
+
 static ISeq createFromObject(Object array){
 	if(array == null || Array.getLength(array) == 0)
 		return null;
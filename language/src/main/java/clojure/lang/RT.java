@@ -389,7 +389,10 @@ public static void loadResourceScript(Class c, String name, boolean failIfNotFou
 	InputStream ins = resourceAsStream(baseLoader(), name);
 	if(ins != null) {
 		try {
-			final Source src = Source.newBuilder(COIFFURE_LANG, new InputStreamReader(ins, UTF8), name).build();
+			// HACK(nilern): The URI identifies the resource for e.g. the `AnalysisCache`:
+			final Source src = Source.newBuilder(COIFFURE_LANG, new InputStreamReader(ins, UTF8), name)
+					.uri(getResource(baseLoader(), name).toURI())
+					.build();
 			Language.getCurrentLanguage().parse(src).call();
 		} catch (final Exception exn) {
 			throw Util.sneakyThrow(exn);
@@ -94,12 +94,7 @@ private static Method toAccessibleSuperMethod(Method m, Object target) {
 }
 
 public static Object invokeInstanceMethod(Object target, String methodName, Object[] args) {
-	Class c = target.getClass();
-	List methods = getMethods(c, args.length, methodName, false).stream()
-					.map(method -> toAccessibleSuperMethod(method, target))
-					.filter(method -> (method != null))
-					.collect(Collectors.toList());
-	return invokeMatchingMethod(methodName, methods, target, args);
+	return invokeMethod(findInstanceMethod(target, methodName, args), target, args);
 }
 
 private static Throwable getCauseOrElse(Exception e) {
@@ -120,8 +115,27 @@ private static String noMethodReport(String methodName, Object target, Object[]
 }
 static Object invokeMatchingMethod(String methodName, List methods, Object target, Object[] args)
 		{
+	return invokeMethod(findMatchingMethod(methodName, methods, target, args), target, args);
+}
+
+// HACK(nilern): Split out of invokeMatchingMethod so that coiffure nodes can cache the selected method:
+public static Method findInstanceMethod(Object target, String methodName, Object[] args) {
+	Class c = target.getClass();
+	List methods = getMethods(c, args.length, methodName, false).stream()
+					.map(method -> toAccessibleSuperMethod(method, target))
+					.filter(method -> (method != null))
+					.collect(Collectors.toList());
+	return findMatchingMethod(methodName, methods, target, args);
+}
+
+public static Method findStaticMethod(Class c, String methodName, Object[] args) {
+	List methods = getMethods(c, args.length, methodName, true);
+	return findMatchingMethod(methodName, methods, null, args);
+}
+
+static Method findMatchingMethod(String methodName, List methods, Object target, Object[] args)
+		{
 	Method m = null;
-	Object[] boxedArgs = null;
 	if(methods.isEmpty())
 		{
 		throw new IllegalArgumentException(noMethodReport(methodName,target,args));
@@ -129,7 +143,6 @@ static Object invokeMatchingMethod(String methodName, List methods, Object targe
 	else if(methods.size() == 1)
 		{
 		m = (Method) methods.get(0);
-		boxedArgs = boxArgs(m.getParameterTypes(), args);
 		}
 	else //overloaded w/same arity
 		{
@@ -144,7 +157,6 @@ static Object invokeMatchingMethod(String methodName, List methods, Object targe
 				if(foundm == null /* HACK(nilern): Comment out: || Compiler.subsumes(params, foundm.getParameterTypes())*/)
 					{
 					foundm = m;
-					boxedArgs = boxArgs(params, args);
 					}
 				}
 			}
@@ -162,6 +174,11 @@ static Object invokeMatchingMethod(String methodName, List methods, Object targe
 			throw new IllegalArgumentException("Can't call public method of non-public class: " +
 			                                    oldm.toString());
 		}
+	return m;
+}
+
+public static Object invokeMethod(Method m, Object target, Object[] args) {
+	Object[] boxedArgs = boxArgs(m.getParameterTypes(), args);
 	try
 		{
 		return prepRet(m.getReturnType(), m.invoke(target, boxedArgs));
@@ -273,41 +290,53 @@ public static boolean isAccessibleMatch(Method lhs, Method rhs, Object target) {
 }
 
 public static Object invokeConstructor(Class c, Object[] args) {
-	try
+	return invokeConstructor(findConstructor(c, args), args);
+}
+
+// HACK(nilern): Split out of invokeConstructor so that coiffure nodes can cache the selected constructor:
+public static List<Constructor> getConstructors(Class c, int arity) {
+	Constructor[] allctors = c.getConstructors();
+	ArrayList ctors = new ArrayList();
+	for(int i = 0; i < allctors.length; i++)
 		{
-		Constructor[] allctors = c.getConstructors();
-		ArrayList ctors = new ArrayList();
-		for(int i = 0; i < allctors.length; i++)
-			{
-			Constructor ctor = allctors[i];
-			if(ctor.getParameterTypes().length == args.length)
-				ctors.add(ctor);
-			}
-		if(ctors.isEmpty())
-			{
-			throw new IllegalArgumentException("No matching ctor found"
-				+ " for " + c);
-			}
-		else if(ctors.size() == 1)
-			{
-			Constructor ctor = (Constructor) ctors.get(0);
-			return ctor.newInstance(boxArgs(ctor.getParameterTypes(), args));
-			}
-		else //overloaded w/same arity
+		Constructor ctor = allctors[i];
+		if(ctor.getParameterTypes().length == arity)
+			ctors.add(ctor);
+		}
+	return ctors;
+}
+
+public static Constructor findConstructor(Class c, Object[] args) {
+	List<Constructor> ctors = getConstructors(c, args.length);
+	if(ctors.isEmpty())
+		{
+		throw new IllegalArgumentException("No matching ctor found"
+			+ " for " + c);
+		}
+	else if(ctors.size() == 1)
+		{
+		return ctors.get(0);
+		}
+	else //overloaded w/same arity
+		{
+		for(Iterator<Constructor> iterator = ctors.iterator(); iterator.hasNext();)
 			{
-			for(Iterator iterator = ctors.iterator(); iterator.hasNext();)
+			Constructor ctor = iterator.next();
+			Class[] params = ctor.getParameterTypes();
+			if(isCongruent(params, args))
 				{
-				Constructor ctor = (Constructor) iterator.next();
-				Class[] params = ctor.getParameterTypes();
-				if(isCongruent(params, args))
-					{
-					Object[] boxedArgs = boxArgs(params, args);
-					return ctor.newInstance(boxedArgs);
-					}
+				return ctor;
 				}
-			throw new IllegalArgumentException("No matching ctor found"
-				+ " for " + c);
 			}
+		throw new IllegalArgumentException("No matching ctor found"
+			+ " for " + c);
+		}
+}
+
+public static Object invokeConstructor(Constructor ctor, Object[] args) {
+	try
+		{
+		return ctor.newInstance(boxArgs(ctor.getParameterTypes(), args));
 		}
 	catch(Exception e)
 		{
@@ -328,8 +357,7 @@ public static Object invokeStaticMethod(String className, String methodName, Obj
 public static Object invokeStaticMethod(Class c, String methodName, Object[] args) {
 	if(methodName.equals("new"))
 		return invokeConstructor(c, args);
-	List methods = getMethods(c, args.length, methodName, true);
-	return invokeMatchingMethod(methodName, methods, null, args);
+	return invokeMethod(findStaticMethod(c, methodName, args), null, args);
 }
 
 public static Object getStaticField(String className, String fieldName) {
@@ -12,6 +12,10 @@
 
 package clojure.lang;
 
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.utilities.NeverValidAssumption;
+
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -85,6 +89,12 @@ static Keyword nsKey = Keyword.intern(null, "ns");
 volatile Object root;
 
 volatile boolean dynamic = false;
+
+// HACK(nilern): Lets coiffure nodes treat the root as a compilation constant until it changes. A Var whose root keeps
+// changing eventually gets no more Assumptions, so that its users stop deoptimizing and just read the root:
+static final int MAX_STABLE_ROOT_INVALIDATIONS = 8;
+private Assumption stableRoot = null; // guarded by this
+private int stableRootInvalidations = 0; // guarded by this
 transient final AtomicBoolean threadBound;
 public final Symbol sym;
 public final Namespace ns;
@@ -105,11 +115,13 @@ public static void resetThreadBindingFrame(Object frame){
 
 public Var setDynamic(){
 	this.dynamic = true;
+	invalidateStableRoot();
 	return this;
 }
 
 public Var setDynamic(boolean b){
 	this.dynamic = b;
+	invalidateStableRoot();
 	return this;
 }
 
@@ -117,6 +129,28 @@ public final boolean isDynamic(){
 	return dynamic;
 }
 
+// HACK(nilern): Valid as long as this is not dynamic and the root has not changed:
+synchronized public Assumption getStableRootAssumption(){
+	if(stableRoot == null)
+		stableRoot = (!dynamic && stableRootInvalidations < MAX_STABLE_ROOT_INVALIDATIONS)
+		             ? Truffle.getRuntime().createAssumption("stable root of " + this)
+		             : NeverValidAssumption.INSTANCE;
+	return stableRoot;
+}
+
+synchronized private void invalidateStableRoot(){
+	if(stableRoot != null)
+		{
+		Assumption oldStableRoot = stableRoot;
+		stableRoot = null;
+		if(oldStableRoot.isValid())
+			{
+			++stableRootInvalidations;
+			oldStableRoot.invalidate();
+			}
+		}
+}
+
 public static Var intern(Namespace ns, Symbol sym, Object root){
 	return intern(ns, sym, root, true);
 }
@@ -278,6 +312,7 @@ synchronized public void bindRoot(Object root){
 	Object oldroot = this.root;
 	this.root = root;
 	++rev;
+	invalidateStableRoot();
         alterMeta(dissoc, RT.list(macroKey));
     notifyWatches(oldroot,this.root);
 }
@@ -287,12 +322,14 @@ synchronized void swapRoot(Object root){
 	Object oldroot = this.root;
 	this.root = root;
 	++rev;
+	invalidateStableRoot();
     notifyWatches(oldroot,root);
 }
 
 synchronized public void unbindRoot(){
 	this.root = new Unbound(this);
 	++rev;
+	invalidateStableRoot();
 }
 
 synchronized public void commuteRoot(IFn fn) {
@@ -301,6 +338,7 @@ synchronized public void commuteRoot(IFn fn) {
 	Object oldroot = root;
 	this.root = newRoot;
 	++rev;
+	invalidateStableRoot();
     notifyWatches(oldroot,newRoot);
 }
 
@@ -310,6 +348,7 @@ synchronized public Object alterRoot(IFn fn, ISeq args) {
 	Object oldroot = root;
 	this.root = newRoot;
 	++rev;
+	invalidateStableRoot();
     notifyWatches(oldroot,newRoot);
 	return newRoot;
 }
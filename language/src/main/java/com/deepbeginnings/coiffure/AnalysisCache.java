@@ -0,0 +1,338 @@
+package com.deepbeginnings.coiffure;
+
+import clojure.lang.Namespace;
+import clojure.lang.RT;
+import clojure.lang.Symbol;
+import clojure.lang.Var;
+
+import com.deepbeginnings.coiffure.ir.IR;
+import com.deepbeginnings.coiffure.ir.Serialization;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.source.Source;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * An on-disk cache of the optimized IR of toplevel methods (`--coiffure.AnalysisCache=DIR`), so that unchanged sources
+ * skip macroexpansion, analysis and the `Passes` on later runs. Entries are keyed by a hash of the source (URI and
+ * contents), the current namespace, the argument names and the Coiffure build itself.
+ *
+ * An entry also records the vars that the code uses or that its macros and inliners came from, each with the
+ * fingerprint of the entry that last defined it (so a var defined by another cached source is only trusted if that
+ * source and, transitively, its own dependencies are unchanged) and the vars that its `def`s intern. Entries whose
+ * dependencies are missing or have changed are misses and get overwritten.
+ *
+ * Entry files are named by a hash of what identifies the load (the URI of the source file or resource, the namespace and
+ * the argument names) followed by the key. Storing an entry deletes the other entries of the same load, which are stale
+ * since the source or the build has changed, so the cache keeps at most one entry per load. Sources without a file or
+ * URL (e.g. REPL input) are not cached at all since their loads could not be told apart.
+ *
+ * Analysis-time effects other than interning vars (e.g. reflection warnings) do not happen on a hit. Nothing is cached
+ * when inlining is enabled or when the IR has constants that `Serialization` does not support; see the FINE logging of
+ * `--log.coiffure.com.deepbeginnings.coiffure.AnalysisCache.level=FINE`.
+ */
+final class AnalysisCache {
+    private static final TruffleLogger LOGGER = TruffleLogger.getLogger(Language.ID, AnalysisCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".ir";
+
+    // The fingerprint of the (cached) source that last defined each var:
+    private static final Map<Var, String> DEFINERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static String buildFingerprint = null; // Lazily; `""` if the build cannot be identified
+
+    private final TruffleFile directory;
+    private final String prefix; // of the file names of the entries of the same load
+    private final TruffleFile file;
+    private final String key;
+
+    private AnalysisCache(final TruffleFile directory, final String load, final String key) {
+        this.directory = directory;
+        this.prefix = load + "-";
+        this.file = directory.resolve(prefix + key + SUFFIX);
+        this.key = key;
+    }
+
+    /** The cache entry for `source` called with `args` or `null` if caching is disabled or impossible. */
+    static AnalysisCache open(final Source source, final Object[] args) {
+        final String path = Context.analysisCache();
+        if (path.isEmpty()) { return null; }
+        if (Context.inlineSize() > 0) { // `Inlined` could not be restored with its assumption anyway
+            LOGGER.fine("not caching analysis since inlining is enabled");
+            return null;
+        }
+
+        final String build = buildFingerprint();
+        if (build.isEmpty()) {
+            LOGGER.fine("not caching analysis since the Coiffure build could not be identified");
+            return null;
+        }
+
+        // Literal sources (e.g. each `<stdin>` line) get synthetic `truffle:` URIs; caching them would just pile up
+        // entries that could never be told apart from other loads of the same name and replaced:
+        final URI uri = source.getURI();
+        if (uri.getScheme() == null || uri.getScheme().equals("truffle")) {
+            LOGGER.fine(() -> "not caching analysis of " + source.getName() + " since it has no file or URL");
+            return null;
+        }
+
+        final TruffleFile directory;
+        try {
+            directory = Context.publicFile(path);
+        } catch (final SecurityException exn) {
+            LOGGER.fine("not caching analysis: " + exn.getMessage());
+            return null;
+        }
+
+        final MessageDigest loadDigest = sha256();
+        update(loadDigest, uri.toString());
+        update(loadDigest, ((Namespace) RT.CURRENT_NS.deref()).getName().toString());
+        for (final Object arg : args) { update(loadDigest, arg.toString()); }
+        final String load = hex(loadDigest.digest()).substring(0, 16);
+
+        final MessageDigest digest = sha256();
+        update(digest, Integer.toString(FORMAT_VERSION));
+        update(digest, build);
+        update(digest, load);
+        update(digest, source.getCharacters().toString());
+        return new AnalysisCache(directory, load, hex(digest.digest()));
+    }
+
+    /** The cached IR or `null` if there is none that is still valid. */
+    IR.Method load(final Source source) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.newInputStream()))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(key)) {
+                return miss(source, "format mismatch");
+            }
+
+            final List<Dependency> dependencies = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; --i) {
+                final Symbol name = Symbol.intern(in.readUTF(), in.readUTF());
+                final String definer = in.readUTF();
+                final Namespace ns = Namespace.find(Symbol.intern(name.getNamespace()));
+                final Var var = (ns != null) ? ns.findInternedVar(Symbol.intern(name.getName())) : null;
+                if (var == null) {
+                    return miss(source, "no var " + name);
+                } else if (!definer.equals(definer(var))) {
+                    return miss(source, name + " has changed");
+                }
+                dependencies.add(new Dependency(var, definer));
+            }
+
+            final List<Var> definitions = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; --i) {
+                final Namespace ns = Namespace.findOrCreate(Symbol.intern(in.readUTF()));
+                definitions.add(Var.intern(ns, Symbol.intern(in.readUTF())));
+            }
+
+            final IR.Method method = Serialization.read(in, source);
+            define(definitions, dependencies);
+            LOGGER.fine(() -> "analysis cache hit for " + source.getName());
+            return method;
+        } catch (final NoSuchFileException exn) {
+            return miss(source, "no entry");
+        } catch (final IOException | SecurityException exn) {
+            return miss(source, exn.toString());
+        }
+    }
+
+    private static IR.Method miss(final Source source, final String reason) {
+        LOGGER.fine(() -> "analysis cache miss for " + source.getName() + ": " + reason);
+        return null;
+    }
+
+    /** Cache `method`, which used the macros and inliners of `expanders` and interned `definitions`. */
+    void store(final Source source, final IR.Method method, final Set<Var> expanders, final Set<Var> definitions) {
+        final Set<Var> vars = new HashSet<>(expanders);
+        collectVars(method.body, vars);
+        vars.removeAll(definitions);
+        final List<Dependency> dependencies = new ArrayList<>();
+        for (final Var var : vars) { dependencies.add(new Dependency(var, definer(var))); }
+        define(definitions, dependencies);
+
+        // Serialize into memory first so that unsupported IR does not leave a partial entry behind:
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+
+            out.writeInt(dependencies.size());
+            for (final Dependency dependency : dependencies) {
+                out.writeUTF(dependency.var.ns.getName().getName());
+                out.writeUTF(dependency.var.sym.getName());
+                out.writeUTF(dependency.definer);
+            }
+
+            out.writeInt(definitions.size());
+            for (final Var var : definitions) {
+                out.writeUTF(var.ns.getName().getName());
+                out.writeUTF(var.sym.getName());
+            }
+
+            Serialization.write(out, source, method);
+        } catch (final IOException exn) {
+            LOGGER.fine(() -> "not caching analysis of " + source.getName() + ": " + exn);
+            return;
+        }
+
+        // Write to a temporary file and rename it so that concurrent runs never see a partial entry:
+        final TruffleFile tmp = directory.resolve(key + "." + UUID.randomUUID() + ".tmp");
+        try {
+            directory.createDirectories();
+            try (OutputStream out = tmp.newOutputStream()) {
+                bytes.writeTo(out);
+            }
+            tmp.move(file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.fine(() -> "cached analysis of " + source.getName());
+            deleteStale(source);
+        } catch (final IOException | SecurityException | UnsupportedOperationException exn) {
+            LOGGER.fine(() -> "could not cache analysis of " + source.getName() + ": " + exn);
+            try {
+                tmp.delete();
+            } catch (final IOException | SecurityException ignored) {
+                // E.g. it was never created
+            }
+        }
+    }
+
+    // Delete the entries of previous versions of this load:
+    private void deleteStale(final Source source) {
+        final String fileName = file.getName();
+        try {
+            for (final TruffleFile entry : directory.list()) {
+                final String name = entry.getName();
+                if (name != null && name.startsWith(prefix) && name.endsWith(SUFFIX) && !name.equals(fileName)) {
+                    try {
+                        entry.delete();
+                        LOGGER.fine(() -> "deleted stale analysis cache entry " + name + " of " + source.getName());
+                    } catch (final NoSuchFileException exn) {
+                        // Already deleted by a concurrent run
+                    }
+                }
+            }
+        } catch (final IOException | SecurityException exn) {
+            LOGGER.fine(() -> "could not delete stale analysis cache entries of " + source.getName() + ": " + exn);
+        }
+    }
+
+    private static final class Dependency {
+        final Var var;
+        final String definer;
+
+        Dependency(final Var var, final String definer) {
+            this.var = var;
+            this.definer = definer;
+        }
+    }
+
+    private static String definer(final Var var) {
+        final String definer = DEFINERS.get(var);
+        return (definer != null) ? definer : "";
+    }
+
+    // Make this entry the definer of `definitions`, which changes along with the entry and its dependencies:
+    private void define(final Iterable<Var> definitions, final List<Dependency> dependencies) {
+        final MessageDigest digest = sha256();
+        update(digest, key);
+        for (final Dependency dependency : dependencies) {
+            update(digest, dependency.var.toString());
+            update(digest, dependency.definer);
+        }
+        final String fingerprint = hex(digest.digest());
+
+        for (final Var var : definitions) { DEFINERS.put(var, fingerprint); }
+    }
+
+    private static void collectVars(final IR ir, final Set<Var> vars) {
+        if (ir instanceof IR.GlobalUse) {
+            vars.add(((IR.GlobalUse) ir).var);
+        } else if (ir instanceof IR.GlobalSet) {
+            vars.add(((IR.GlobalSet) ir).var);
+        } else if (ir instanceof IR.Const && ((IR.Const) ir).value instanceof Var) {
+            vars.add((Var) ((IR.Const) ir).value);
+        }
+
+        ir.mapChildren((child) -> {
+            collectVars(child, vars);
+            return child;
+        });
+    }
+
+    // # Hashing
+
+    // The location of the Coiffure (and `clojure.lang`) classes and when they were last modified, so that the entries
+    // of other builds, whose analysis or IR could differ, are never used:
+    private static synchronized String buildFingerprint() {
+        if (buildFingerprint == null) {
+            buildFingerprint = "";
+            try {
+                final CodeSource codeSource = AnalysisCache.class.getProtectionDomain().getCodeSource();
+                final URL location = (codeSource != null) ? codeSource.getLocation() : null;
+                if (location != null && location.getProtocol().equals("file")) {
+                    final File file = new File(location.toURI());
+                    buildFingerprint = file + ":" + file.length() + ":" + lastModified(file);
+                }
+            } catch (final Exception exn) {
+                LOGGER.fine(() -> "could not identify Coiffure build: " + exn);
+            }
+        }
+        return buildFingerprint;
+    }
+
+    // For a classes directory (in development) the latest modification of anything in it:
+    private static long lastModified(final File file) {
+        long lastModified = file.lastModified();
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) { lastModified = Math.max(lastModified, lastModified(child)); }
+        }
+        return lastModified;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exn) {
+            throw new AssertionError(exn); // Every Java platform is required to support SHA-256
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(2 * bytes.length);
+        for (final byte b : bytes) { hex.append(String.format("%02x", b)); }
+        return hex.toString();
+    }
+}
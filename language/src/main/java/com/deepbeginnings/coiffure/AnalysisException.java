@@ -0,0 +1,19 @@
+package com.deepbeginnings.coiffure;
+
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * An error in analyzing (or macroexpanding) a form, at the innermost enclosing list form that has a position (like
+ * `Compiler.CompilerException`). Also for fn methods that are only analyzed when first called.
+ */
+public final class AnalysisException extends RuntimeException {
+    private final SourceSection section;
+
+    AnalysisException(final SourceSection section, final RuntimeException cause) {
+        super(String.format("Syntax error analyzing at (%s:%d:%d): %s", section.getSource().getName(),
+                section.getStartLine(), section.getStartColumn(), cause.getMessage()), cause);
+        this.section = section;
+    }
+
+    public SourceSection getSourceSection() { return section; }
+}
@@ -2,11 +2,18 @@ package com.deepbeginnings.coiffure;
 
 import clojure.lang.*;
 
-import com.deepbeginnings.coiffure.nodes.*;
+import com.deepbeginnings.coiffure.ir.IR;
+import com.deepbeginnings.coiffure.ir.Inlining;
+import com.deepbeginnings.coiffure.ir.Passes;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.*;
 import java.util.stream.Stream;
 import java.util.stream.Collectors;
@@ -46,11 +53,15 @@ public final class Analyzer {
     static final Symbol CLASS = Symbol.intern("Class");
 
     static final Keyword TAG_KEY = Keyword.intern(null, "tag");
+    private static final Keyword INLINE_KEY = Keyword.intern(null, "inline");
+    private static final Keyword INLINE_ARITIES_KEY = Keyword.intern(null, "inline-arities");
 
     // # Env
 
     private static abstract class Env {
-        protected abstract Expr get(Symbol name);
+        protected abstract IR get(Symbol name);
+
+        protected abstract ToplevelEnv toplevel();
 
         protected abstract Optional<Var> macroVar(Symbol name);
 
@@ -65,23 +76,65 @@ public final class Analyzer {
                 if (var.ns != Namespaces.currentNS() && !var.isPublic()) {
                     throw new IllegalStateException("var: " + var + " is not public");
                 }
+                toplevel().expanders.add(var);
             });
 
             return optVar;
         }
 
+        /** The `:inline` fn of the (non-dynamic) var named by `op` if it applies to `argc` args (`Compiler.isInline`). */
+        final Optional<IFn> inliner(final Object op, final int argc) {
+            final Optional<Var> optVar = (op instanceof Var) ? Optional.of((Var) op)
+                    : (op instanceof Symbol) ? macroVar((Symbol) op)
+                    : Optional.empty();
+
+            return optVar.filter((var) -> !var.isDynamic()).flatMap((var) -> {
+                final IPersistentMap meta = var.meta();
+                final Object inline = RT.get(meta, INLINE_KEY);
+                if (inline instanceof IFn) {
+                    final Object arities = RT.get(meta, INLINE_ARITIES_KEY);
+                    if (arities == null || RT.booleanCast(((IFn) arities).invoke(argc))) {
+                        if (var.ns != Namespaces.currentNS() && !var.isPublic()) {
+                            throw new IllegalStateException("var: " + var + " is not public");
+                        }
+                        toplevel().expanders.add(var);
+                        return Optional.of((IFn) inline);
+                    }
+                }
+                return Optional.empty();
+            });
+        }
+
         protected ClosureEnv pushFn() { return new ClosureEnv(this); }
     }
 
     private static abstract class MethodsEnv extends Env {
-        protected MethodEnv pushMethod(final Iterable<Symbol> args) {
-            return MethodEnv.create(this, new FrameDescriptor(), args);
+        protected MethodEnv pushMethod(final FrameDescriptor frameDescriptor, final Iterable<Symbol> args) {
+            return MethodEnv.create(this, frameDescriptor, args);
         }
     }
 
     private static final class ToplevelEnv extends MethodsEnv {
+        private final Source source; // For source sections
+        private final Startup startup;
+        // For `AnalysisCache`; the IR does not show which macros and inliners were used or which vars `def` interned:
+        private final Set<Var> expanders;
+        private final Set<Var> definitions;
+
+        private ToplevelEnv(final Source source, final Startup startup, final Set<Var> expanders,
+                            final Set<Var> definitions
+        ) {
+            this.source = source;
+            this.startup = startup;
+            this.expanders = expanders;
+            this.definitions = definitions;
+        }
+
         @Override
-        protected Expr get(final Symbol name) { return null; }
+        protected IR get(final Symbol name) { return null; }
+
+        @Override
+        protected ToplevelEnv toplevel() { return this; }
 
         @Override
         protected Optional<Var> macroVar(final Symbol name) {
@@ -92,41 +145,47 @@ public final class Analyzer {
     private static final class ClosureEnv extends MethodsEnv {
         private final Env parent;
         private FrameSlot self;
-        protected final Map<Symbol, Expr> closings;
+        private final Map<Symbol, Integer> cloverIndices;
+        protected final List<IR> closings;
 
         private ClosureEnv(final Env parent) {
             super();
             this.parent = parent;
             this.self = null;
-            this.closings = new HashMap<>();
+            this.cloverIndices = new HashMap<>();
+            this.closings = new ArrayList<>();
         }
 
         @Override
-        protected MethodEnv pushMethod(final Iterable<Symbol> args) {
-            final FrameDescriptor frameDescriptor = new FrameDescriptor();
+        protected MethodEnv pushMethod(final FrameDescriptor frameDescriptor, final Iterable<Symbol> args) {
             self = frameDescriptor.addFrameSlot(0);
             return MethodEnv.create(this, frameDescriptor, args);
         }
 
         @Override
-        protected Expr get(final Symbol name) {
-            Expr closing = closings.get(name);
-            if (closing != null) { return closing; }
-
-            closing = parent.get(name);
-            if (closing != null) {
-                final int cloverIndex = closings.size();
-                closings.put(name, closing);
-                return CloverUseNodeGen.create(self, cloverIndex);
-            } else {
-                return null;
+        protected IR get(final Symbol name) {
+            Integer cloverIndex = cloverIndices.get(name);
+            if (cloverIndex == null) {
+                final IR closing = parent.get(name);
+                if (closing != null) {
+                    cloverIndex = closings.size();
+                    cloverIndices.put(name, cloverIndex);
+                    closings.add(closing);
+                } else {
+                    return null;
+                }
             }
+
+            return new IR.CloverUse(self, cloverIndex);
         }
 
         @Override
         protected Optional<Var> macroVar(final Symbol name) {
-            return closings.containsKey(name) ? Optional.empty() : parent.macroVar(name);
+            return cloverIndices.containsKey(name) ? Optional.empty() : parent.macroVar(name);
         }
+
+        @Override
+        protected ToplevelEnv toplevel() { return parent.toplevel(); }
     }
 
     private static abstract class FrameEnv extends Env {
@@ -150,15 +209,18 @@ public final class Analyzer {
         protected FrameSlot getSlot(final Symbol name) { return (FrameSlot) namedSlots.valAt(name); }
 
         @Override
-        protected Expr get(final Symbol name) {
+        protected IR get(final Symbol name) {
             final FrameSlot slot = getSlot(name);
-            return (slot != null) ? LocalUseNodeGen.create(slot) : getFrameRoot().parent.get(name);
+            return (slot != null) ? new IR.LocalUse(slot) : getFrameRoot().parent.get(name);
         }
 
         @Override
         protected Optional<Var> macroVar(final Symbol name) {
             return namedSlots.containsKey(name) ? Optional.empty() : getFrameRoot().parent.macroVar(name);
         }
+
+        @Override
+        protected ToplevelEnv toplevel() { return getFrameRoot().parent.toplevel(); }
     }
 
     private static final class MethodEnv extends FrameEnv {
@@ -166,6 +228,7 @@ public final class Analyzer {
         private final FrameDescriptor frameDescriptor;
         private int localsCount;
         private final List<FrameSlot> paramSlots;
+        private final Map<FrameSlot, Class<?>> slotTypes = new HashMap<>(); // From type hints and `typeOf` the init
 
         private static MethodEnv create(final Env parent, final FrameDescriptor frameDescriptor,
                                         final Iterable<Symbol> args
@@ -201,6 +264,19 @@ public final class Analyzer {
         }
 
         protected List<FrameSlot> paramSlots() { return paramSlots; }
+
+        private void setSlotType(final FrameSlot slot, final Class<?> type) {
+            if (type != null) {
+                slotTypes.put(slot, type);
+                if (type == long.class) {
+                    frameDescriptor.setFrameSlotKind(slot, FrameSlotKind.Long);
+                } else if (type == double.class) {
+                    frameDescriptor.setFrameSlotKind(slot, FrameSlotKind.Double);
+                }
+            }
+        }
+
+        private Class<?> slotType(final FrameSlot slot) { return slotTypes.get(slot); }
     }
 
     private static final class NestedEnv extends FrameEnv {
@@ -239,72 +315,124 @@ public final class Analyzer {
 
     // # Analysis
 
-    public static MethodNode analyzeToplevel(final ISeq form) {
-        return analyzeMethod(true, new ToplevelEnv(), form);
+    /**
+     * Analyze and optimize the toplevel method `form` of `source`, adding the vars of the macros and inliners that it
+     * used to `expanders` and the vars that its `def`s interned to `definitions`.
+     */
+    static IR.Method analyzeToplevel(final Source source, final SourceSection section, final Startup startup,
+                                     final ISeq form, final Set<Var> expanders, final Set<Var> definitions
+    ) {
+        long start = startup.start();
+        IR.Method method = analyzeMethod(true, new ToplevelEnv(source, startup, expanders, definitions),
+                new FrameDescriptor(), form);
+        method = new IR.Method(method.frameDescriptor, method.minArity, method.isVariadic, method.body,
+                source.getName(), section);
+        startup.end(Startup.Phase.ANALYZE, start);
+
+        start = startup.start();
+        method = Passes.DEFAULT.run(method);
+        startup.end(Startup.Phase.PASSES, start);
+        return method;
     }
 
-    private static Expr analyze(final FrameEnv locals, final Context ctx, final Object form) {
+    private static IR analyze(final FrameEnv locals, final Context ctx, final Object form) {
         if (form instanceof Symbol) {
             return analyzeSymbol(locals, (Symbol) form);
         } else if (form instanceof ISeq) {
-            final ISeq coll = (ISeq) form;
-
-            final Object form_ = macroexpand1(locals, coll);
-            // NOTE: Use recursion so that runaway macroexpansion causes a stack overflow:
-            if (form_ != form) { return analyze(locals, ctx, form_); }
-
-            if (Util.equiv(coll.first(), DO)) {
-                return analyzeDo(locals, ctx, coll.next());
-            } else if (Util.equiv(coll.first(), IF)) {
-                return analyzeIf(locals, ctx, coll.next());
-            } else if (Util.equiv(coll.first(), THROW)) {
-                return analyzeThrow(locals, coll.next());
-            } else if (Util.equiv(coll.first(), TRY)) {
-                return analyzeTry(locals, coll.next());
-            } else if (Util.equiv(coll.first(), LOCKING)) {
-                return analyzeLocking(locals, coll.next());
-            } else if (Util.equiv(coll.first(), LETS)) {
-                return analyzeLet(locals, ctx, coll.next());
-            } else if (Util.equiv(coll.first(), FNS)) {
-                return analyzeFn(locals, coll.next());
-            } else if (Util.equiv(coll.first(), DEF)) {
-                return analyzeDef(locals, coll.next());
-            } else if (Util.equiv(coll.first(), VAR)) {
-                return analyzeVar(coll.next());
-            } else if (Util.equiv(coll.first(), QUOTE)) {
-                return analyzeQuote(coll.next());
-            } else if (Util.equiv(coll.first(), NEW)) {
-                return analyzeNew(locals, coll.next());
-            } else if (Util.equiv(coll.first(), DOT)) {
-                return analyzeDot(locals, coll.next());
-            } else if (Util.equiv(coll.first(), LOOP)) {
-                return analyzeLoop(locals, coll.next());
-            } else if (Util.equiv(coll.first(), RECUR)) {
-                return analyzeRecur(locals, ctx, coll.next());
-            } else if (Util.equiv(coll.first(), SET_BANG_)) {
-                return analyzeAssign(locals, coll.next());
-            } else if (coll.count() > 0) {
-                return analyzeCall(locals, coll.first(), coll.next());
-            } else {
-                throw new RuntimeException("TODO: analyze " + form);
+            final SourceSection section = section(locals, form);
+            try {
+                // The expansion of a macro form is attributed to it (unless it has a position of its own):
+                return analyzeSeq(locals, ctx, (ISeq) form).at(section);
+            } catch (final AnalysisException exn) {
+                throw exn; // Already at a more precise position
+            } catch (final RuntimeException exn) {
+                if (section != null) {
+                    throw new AnalysisException(section, exn);
+                } else {
+                    throw exn;
+                }
             }
         } else if (form instanceof IPersistentVector) {
             return analyzeVector(locals, (IPersistentVector) form);
         } else if (form instanceof IPersistentMap) {
             return analyzeMap(locals, (IPersistentMap) form);
         } else if (form instanceof String) {
-            return new Const(((String) form).intern());
+            return new IR.Const(((String) form).intern());
         } else if (form == null
                 || form instanceof Boolean
                 || form instanceof Long
                 || form instanceof Keyword
                 || /*HACK:*/ form instanceof Namespace) {
-            return new Const(form);
+            return new IR.Const(form);
         } else {
             throw new RuntimeException("TODO: analyze " + form + ": " + form.getClass());
         }
     }
 
+    private static IR analyzeSeq(final FrameEnv locals, final Context ctx, final ISeq coll) {
+        final Object form_ = macroexpand1(locals, coll);
+        // NOTE: Use recursion so that runaway macroexpansion causes a stack overflow:
+        if (form_ != coll) { return analyze(locals, ctx, preservePosition(coll, form_)); }
+
+        if (Util.equiv(coll.first(), DO)) {
+            return analyzeDo(locals, ctx, coll.next());
+        } else if (Util.equiv(coll.first(), IF)) {
+            return analyzeIf(locals, ctx, coll.next());
+        } else if (Util.equiv(coll.first(), THROW)) {
+            return analyzeThrow(locals, coll.next());
+        } else if (Util.equiv(coll.first(), TRY)) {
+            return analyzeTry(locals, coll.next());
+        } else if (Util.equiv(coll.first(), LOCKING)) {
+            return analyzeLocking(locals, coll.next());
+        } else if (Util.equiv(coll.first(), LETS)) {
+            return analyzeLet(locals, ctx, coll.next());
+        } else if (Util.equiv(coll.first(), FNS)) {
+            return analyzeFn(locals, coll.next());
+        } else if (Util.equiv(coll.first(), DEF)) {
+            return analyzeDef(locals, coll.next());
+        } else if (Util.equiv(coll.first(), VAR)) {
+            return analyzeVar(coll.next());
+        } else if (Util.equiv(coll.first(), QUOTE)) {
+            return analyzeQuote(coll.next());
+        } else if (Util.equiv(coll.first(), NEW)) {
+            return analyzeNew(locals, coll.next(), section(locals, coll));
+        } else if (Util.equiv(coll.first(), DOT)) {
+            return analyzeDot(locals, coll.next(), section(locals, coll));
+        } else if (Util.equiv(coll.first(), LOOP)) {
+            return analyzeLoop(locals, coll.next());
+        } else if (Util.equiv(coll.first(), RECUR)) {
+            return analyzeRecur(locals, ctx, coll.next());
+        } else if (Util.equiv(coll.first(), SET_BANG_)) {
+            return analyzeAssign(locals, coll.next());
+        } else if (coll.count() > 0) {
+            return analyzeCall(locals, coll.first(), coll.next());
+        } else {
+            throw new RuntimeException("TODO: analyze " + coll);
+        }
+    }
+
+    private static SourceSection section(final Env env, final Object form) {
+        return section(env.toplevel().source, form);
+    }
+
+    /** The source section of `form` from the positions that `Parser` recorded in its metadata, if any. */
+    static SourceSection section(final Source source, final Object form) {
+        final IPersistentMap meta = RT.meta(form);
+        if (source != null && meta != null && meta.valAt(Parser.END_COLUMN_KEY) instanceof Integer
+                && Parser.file(source).equals(meta.valAt(Parser.FILE_KEY))
+        ) {
+            try {
+                return source.createSection((Integer) meta.valAt(Parser.LINE_KEY),
+                        (Integer) meta.valAt(Parser.COLUMN_KEY), (Integer) meta.valAt(Parser.END_LINE_KEY),
+                        (Integer) meta.valAt(Parser.END_COLUMN_KEY));
+            } catch (final IllegalArgumentException exn) { // E.g. the file has changed since
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
     private static Object macroexpand1(final FrameEnv env, final ISeq form) {
         final Object op = form.first();
         if (!isSpecialForm(op)) { // NOTE: Prevents overriding special forms
@@ -313,7 +441,20 @@ public final class Analyzer {
                 final Var macroVar = optMacroVar.get();
 
                 final ISeq args = RT.cons(form, RT.cons(/* FIXME: */ null, form.next()));
-                return macroVar.applyTo(args);
+                final Startup startup = env.toplevel().startup;
+                final long start = startup.start();
+                final Object expansion = macroVar.applyTo(args);
+                startup.end(Startup.Phase.MACROEXPAND, start);
+                return expansion;
+            }
+
+            final Optional<IFn> optInliner = env.inliner(op, RT.count(form.next()));
+            if (optInliner.isPresent()) {
+                final Startup startup = env.toplevel().startup;
+                final long start = startup.start();
+                final Object expansion = optInliner.get().applyTo(form.next());
+                startup.end(Startup.Phase.MACROEXPAND, start);
+                return preserveTag(form, expansion);
             } else if (op instanceof Symbol) {
                 final Symbol opSym = (Symbol) op;
                 final String name = opSym.getName();
@@ -350,6 +491,24 @@ public final class Analyzer {
         return form;
     }
 
+    // Give an expansion without a position of its own in the same file (e.g. a list that the macro built or quoted in
+    // its own file) that of the macro form (e.g. for reflection warnings):
+    private static Object preservePosition(final ISeq src, final Object dst) {
+        final IPersistentMap srcMeta = RT.meta(src);
+        if (dst instanceof ISeq && dst instanceof IObj && srcMeta != null && srcMeta.containsKey(Parser.END_COLUMN_KEY)
+                && !(RT.get(RT.meta(dst), Parser.END_COLUMN_KEY) != null
+                        && Util.equals(RT.get(RT.meta(dst), Parser.FILE_KEY), srcMeta.valAt(Parser.FILE_KEY)))
+        ) {
+            Object meta = RT.meta(dst);
+            for (final Keyword key : new Keyword[]{Parser.FILE_KEY, Parser.LINE_KEY, Parser.COLUMN_KEY,
+                    Parser.END_LINE_KEY, Parser.END_COLUMN_KEY}) {
+                meta = RT.assoc(meta, key, srcMeta.valAt(key));
+            }
+            return ((IObj) dst).withMeta((IPersistentMap) meta);
+        }
+        return dst;
+    }
+
     public static Object preserveTag(final ISeq src, final Object dst) {
         final Symbol tag = tagOf(src);
         if (tag != null && dst instanceof IObj) {
@@ -365,9 +524,9 @@ public final class Analyzer {
                 : null;
     }
 
-    private static Expr analyzeSymbol(final FrameEnv locals, final Symbol name) {
+    private static IR analyzeSymbol(final FrameEnv locals, final Symbol name) {
         // Local?:
-        final Expr expr = locals.get(name);
+        final IR expr = locals.get(name);
         if (expr != null) {
             return expr;
         }
@@ -377,24 +536,26 @@ public final class Analyzer {
         if (ns != null) {
             final Class<?> klass = Namespaces.maybeClass(Symbol.intern(ns), false);
             if (klass != null) {
-                return GetStatic.create(klass, name.getName())
-                        .orElseThrow(() -> new RuntimeException(
-                                "Unable to find static field: " + name.getName() + " in " + klass
-                        ));
+                final Field field = Reflector.getField(klass, name.getName(), true);
+                if (field != null) {
+                    return new IR.GetStatic(field);
+                } else {
+                    throw new RuntimeException("Unable to find static field: " + name.getName() + " in " + klass);
+                }
             }
         }
 
         final Object v = Namespaces.resolve(name);
         if (v instanceof Var) { // Global
-            return GlobalUseNodeGen.create((Var) v);
+            return new IR.GlobalUse((Var) v);
         } else if (v instanceof Class) { // Class as value
-            return new Const(v);
+            return new IR.Const(v);
         } else {
             throw new AssertionError("TODO");
         }
     }
 
-    private static Expr analyzeVar(final ISeq args) {
+    private static IR analyzeVar(final ISeq args) {
         if (args != null) {
             final Object nameForm = args.first();
 
@@ -403,7 +564,7 @@ public final class Analyzer {
                     final Symbol name = (Symbol) nameForm;
                     final Var var = Namespaces.lookupVar(name, false);
                     if (var != null) {
-                        return new Const(var);
+                        return new IR.Const(var);
                     } else {
                         throw new RuntimeException("Unable to resolve var: " + name + " in this context");
                     }
@@ -418,12 +579,12 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeQuote(final ISeq args) {
+    private static IR analyzeQuote(final ISeq args) {
         if (args != null) {
             final Object valForm = args.first();
 
             if (args.next() == null) {
-                return new Const(valForm);
+                return new IR.Const(valForm);
             } else {
                 throw new RuntimeException("Too many arguments to quote");
             }
@@ -432,37 +593,48 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeDo(final FrameEnv locals, final Context ctx, ISeq args) {
-        final ArrayList<Expr> stmts = new ArrayList<>();
+    private static IR analyzeDo(final FrameEnv locals, final Context ctx, ISeq args) {
+        final ArrayList<IR> stmts = new ArrayList<>();
+
+        // The toplevel forms are the statements of the toplevel method (or of toplevel `do`s):
+        final Startup startup = (locals instanceof MethodEnv && ((MethodEnv) locals).parent instanceof ToplevelEnv)
+                ? ((ToplevelEnv) ((MethodEnv) locals).parent).startup
+                : null;
 
         while (args != null) {
             final Object stmt = args.first();
             args = args.next();
 
             final Context stmtCtx = (args != null) ? Context.NONTAIL : ctx;
-            stmts.add(analyze(locals, stmtCtx, stmt));
+            if (startup != null) {
+                final long start = startup.start();
+                stmts.add(analyze(locals, stmtCtx, stmt));
+                startup.logForm(Startup.Phase.ANALYZE, start, stmt);
+            } else {
+                stmts.add(analyze(locals, stmtCtx, stmt));
+            }
         }
 
-        return Do.create(stmts.toArray(new Expr[0]));
+        return new IR.Do(stmts.toArray(new IR[0]));
     }
 
-    private static Expr analyzeIf(final FrameEnv locals, final Context ctx, ISeq args) {
+    private static IR analyzeIf(final FrameEnv locals, final Context ctx, ISeq args) {
         if (args != null) {
-            final Expr cond = analyze(locals, Context.NONTAIL, args.first());
+            final IR cond = analyze(locals, Context.NONTAIL, args.first());
 
             if ((args = args.next()) != null) {
-                final Expr conseq = analyze(locals, ctx, args.first());
+                final IR conseq = analyze(locals, ctx, args.first());
 
                 if ((args = args.next()) != null) {
-                    final Expr alt = analyze(locals, ctx, args.first());
+                    final IR alt = analyze(locals, ctx, args.first());
 
                     if (args.next() == null) {
-                        return new If(cond, conseq, alt);
+                        return new IR.If(cond, conseq, alt);
                     } else {
                         throw new RuntimeException("Too many arguments to if");
                     }
                 } else {
-                    return new If(cond, conseq, new Const(null));
+                    return new IR.If(cond, conseq, new IR.Const(null));
                 }
             }
         }
@@ -470,12 +642,12 @@ public final class Analyzer {
         throw new RuntimeException("Too few arguments to if");
     }
 
-    private static Expr analyzeThrow(final FrameEnv locals, final ISeq args) {
+    private static IR analyzeThrow(final FrameEnv locals, final ISeq args) {
         if (args != null) {
             final Object exnForm = args.first();
 
             if (args.next() == null) {
-                return new ThrowNode(analyze(locals, Context.NONTAIL, exnForm));
+                return new IR.Throw(analyze(locals, Context.NONTAIL, exnForm));
             } else {
                 throw new RuntimeException("Too many arguments to throw");
             }
@@ -484,8 +656,8 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeTry(final FrameEnv env, ISeq args) {
-        final List<Expr> body = new ArrayList<>();
+    private static IR analyzeTry(final FrameEnv env, ISeq args) {
+        final List<IR> body = new ArrayList<>();
         for (; args != null; args = args.next()) {
             final Object argForm = args.first();
 
@@ -497,7 +669,7 @@ public final class Analyzer {
             body.add(analyze(env, Context.NONTAIL, argForm));
         }
 
-        final List<CatchNode> catches = new ArrayList<>();
+        final List<IR.Catch> catches = new ArrayList<>();
         for (; args != null; args = args.next()) {
             final Object argForm = args.first();
 
@@ -516,7 +688,7 @@ public final class Analyzer {
             throw new RuntimeException("Only catch or finally clause can follow catch in try expression");
         }
 
-        Expr finallyExpr = null;
+        IR finallyExpr = null;
         if (args != null) {
             final Object argForm = args.first();
 
@@ -528,10 +700,10 @@ public final class Analyzer {
             }
         }
 
-        return TryNode.create(Do.create(body.toArray(new Expr[0])), catches.toArray(new CatchNode[0]), finallyExpr);
+        return new IR.Try(new IR.Do(body.toArray(new IR[0])), catches.toArray(new IR.Catch[0]), finallyExpr);
     }
 
-    private static CatchNode analyzeCatch(FrameEnv env, ISeq args) {
+    private static IR.Catch analyzeCatch(FrameEnv env, ISeq args) {
         if (args != null) {
             final Object classForm = args.first();
 
@@ -547,7 +719,8 @@ public final class Analyzer {
                         if (paramForm instanceof Symbol) {
                             final NestedEnv env_ = env.push((Symbol) paramForm, FrameSlotKind.Object);
                             env = env_;
-                            return new CatchNode(catcheeClass, env_.topSlot(), analyzeDo(env, Context.NONTAIL, args));
+                            env.getFrameRoot().setSlotType(env_.topSlot(), catcheeClass);
+                            return new IR.Catch(catcheeClass, env_.topSlot(), analyzeDo(env, Context.NONTAIL, args));
                         } else {
                             throw new IllegalArgumentException("Bad binding form, expected symbol, got: " + paramForm);
                         }
@@ -563,33 +736,36 @@ public final class Analyzer {
         throw new RuntimeException("Too few arguments to catch");
     }
 
-    private static Expr analyzeLocking(final FrameEnv env, final ISeq args) {
+    private static IR analyzeLocking(final FrameEnv env, final ISeq args) {
         if (args != null) {
-            final Expr lockExpr = analyze(env, Context.NONTAIL, args.first());
-            final Expr body = analyzeDo(env, Context.NONTAIL, args.next());
-            return new LockingNode(lockExpr, body);
+            final IR lockExpr = analyze(env, Context.NONTAIL, args.first());
+            final IR body = analyzeDo(env, Context.NONTAIL, args.next());
+            return new IR.Locking(lockExpr, body);
         } else {
             throw new RuntimeException("Too few arguments to locking");
         }
     }
 
-    private static Expr analyzeLet(FrameEnv locals, final Context ctx, final ISeq args) {
+    private static IR analyzeLet(FrameEnv locals, final Context ctx, final ISeq args) {
         if (args != null) {
             final Object bindingsForm = args.first();
             if (bindingsForm instanceof IPersistentVector) {
                 final IPersistentVector bindings = (IPersistentVector) bindingsForm;
 
-                final ArrayList<Expr> stmts = new ArrayList<>();
+                final ArrayList<IR> stmts = new ArrayList<>();
 
                 for (int i = 0; i < bindings.count(); ++i) {
                     final Object binder = bindings.nth(i);
                     if (binder instanceof Symbol) {
                         ++i;
                         if (i < bindings.count()) {
-                            final Expr expr = analyze(locals, Context.NONTAIL, bindings.nth(i));
+                            final Class<?> hint = hint(binder);
+                            final IR expr = cast(hint, analyze(locals, Context.NONTAIL, bindings.nth(i)));
+                            final Class<?> type = (hint != null) ? hint : typeOf(locals, expr);
                             final NestedEnv locals_ = locals.push((Symbol) binder);
                             locals = locals_;
-                            stmts.add(LocalDefNodeGen.create(expr, locals_.topSlot()));
+                            locals.getFrameRoot().setSlotType(locals_.topSlot(), type);
+                            stmts.add(new IR.LocalDef(locals_.topSlot(), expr));
                         } else {
                             throw new RuntimeException("Binder " + binder + " missing value expression");
                         }
@@ -598,8 +774,8 @@ public final class Analyzer {
                     }
                 }
 
-                stmts.add(analyzeDo(locals, ctx, args.next())); // OPTIMIZE: Unnest Do:s
-                return Do.create(stmts.toArray(new Expr[0]));
+                stmts.add(analyzeDo(locals, ctx, args.next()));
+                return new IR.Do(stmts.toArray(new IR[0]));
             } else {
                 throw new RuntimeException("Bad binding form, expected vector");
             }
@@ -609,26 +785,29 @@ public final class Analyzer {
     }
 
     // TODO: Factor out bindings part in common with `let*`:
-    private static Expr analyzeLoop(FrameEnv locals, final ISeq args) {
+    private static IR analyzeLoop(FrameEnv locals, final ISeq args) {
         if (args != null) {
             final Object bindingsForm = args.first();
             if (bindingsForm instanceof IPersistentVector) {
                 final IPersistentVector bindings = (IPersistentVector) bindingsForm;
 
                 final List<FrameSlot> paramSlots = new ArrayList<>();
-                final ArrayList<Expr> stmts = new ArrayList<>();
+                final ArrayList<IR> stmts = new ArrayList<>();
 
                 for (int i = 0; i < bindings.count(); ++i) {
                     final Object binder = bindings.nth(i);
                     if (binder instanceof Symbol) {
                         ++i;
                         if (i < bindings.count()) {
-                            final Expr expr = analyze(locals, Context.NONTAIL, bindings.nth(i));
+                            // Unlike `let*`, only hints since `recur` can pass anything else than the init:
+                            final Class<?> hint = hint(binder);
+                            final IR expr = cast(hint, analyze(locals, Context.NONTAIL, bindings.nth(i)));
                             final NestedEnv locals_ = locals.push((Symbol) binder);
                             locals = locals_;
                             final FrameSlot slot = locals_.topSlot();
+                            locals.getFrameRoot().setSlotType(slot, hint);
                             paramSlots.add(slot);
-                            stmts.add(LocalDefNodeGen.create(expr, slot));
+                            stmts.add(new IR.LocalDef(slot, expr));
                         } else {
                             throw new RuntimeException("Binder " + binder + " missing value expression");
                         }
@@ -638,14 +817,14 @@ public final class Analyzer {
                 }
 
                 final Context.Tail ctx = Context.tail(paramSlots);
-                final Expr body = analyzeDo(locals, ctx, args.next());
+                final IR body = analyzeDo(locals, ctx, args.next());
                 if (ctx.recurred) {
-                    stmts.add(new Loop(body));
+                    stmts.add(new IR.Loop(body));
                 } else {
                     // TODO: Warn about non-recursing `loop`?
-                    stmts.add(body); // OPTIMIZE: Unnest Do:s
+                    stmts.add(body);
                 }
-                return Do.create(stmts.toArray(new Expr[0]));
+                return new IR.Do(stmts.toArray(new IR[0]));
             } else {
                 throw new RuntimeException("Bad binding form, expected vector");
             }
@@ -654,20 +833,30 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeRecur(final FrameEnv env, final Context ctx, ISeq argsForm) {
+    private static IR analyzeRecur(final FrameEnv env, final Context ctx, ISeq argsForm) {
         if (ctx instanceof Context.Tail) {
             final Context.Tail tailCtx = (Context.Tail) ctx;
 
-            final List<Expr> argDefs = new ArrayList<>();
+            // All args must be evaluated before any param is assigned, so all but the last arg go through temp slots
+            // (which, like the params, get primitive-specialized):
+            final List<IR> argDefs = new ArrayList<>();
+            final List<IR> paramDefs = new ArrayList<>();
             int argc = 0;
             for (final Iterator<FrameSlot> slotsIt = tailCtx.params.iterator();
                  slotsIt.hasNext(); argsForm = argsForm.next()
             ) {
                 if (argsForm != null) {
                     ++argc;
-                    final Expr arg = analyze(env, Context.NONTAIL, argsForm.first());
                     final FrameSlot slot = slotsIt.next();
-                    argDefs.add(LocalDefNodeGen.create(arg, slot));
+                    final IR arg = cast(env.getFrameRoot().slotType(slot),
+                            analyze(env, Context.NONTAIL, argsForm.first()));
+                    if (slotsIt.hasNext()) {
+                        final FrameSlot tmpSlot = env.getFrameRoot().addSlot(FrameSlotKind.Illegal);
+                        argDefs.add(new IR.LocalDef(tmpSlot, arg));
+                        paramDefs.add(new IR.LocalDef(slot, new IR.LocalUse(tmpSlot)));
+                    } else {
+                        argDefs.add(new IR.LocalDef(slot, arg));
+                    }
                 } else {
                     throw new IllegalArgumentException(
                             String.format("Mismatched argument count to recur, expected: %d args, got: %d",
@@ -676,8 +865,9 @@ public final class Analyzer {
             }
 
             if (argsForm == null) {
+                argDefs.addAll(paramDefs);
                 tailCtx.recurred = true;
-                return new Recur(argDefs.toArray(new Expr[0]));
+                return new IR.Recur(argDefs.toArray(new IR[0]));
             } else {
                 throw new IllegalArgumentException(
                         String.format("Mismatched argument count to recur, expected: %d args, got: %d",
@@ -688,60 +878,130 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeFn(final FrameEnv locals, ISeq args) {
-        final MethodNode[] methods = new MethodNode[MAX_POSITIONAL_ARITY + 1];
-        MethodNode variadicMethod = null;
+    private static IR analyzeFn(final FrameEnv locals, ISeq args) {
+        final IR.Method[] methods = new IR.Method[MAX_POSITIONAL_ARITY + 1];
+        IR.Method variadicMethod = null;
+        final List<IR.Method> allMethods = new ArrayList<>();
         final ClosureEnv env = locals.pushFn();
+        final boolean deferred = isDeferrable(locals);
 
         for (int i = 0; args != null; args = args.next(), ++i) {
-            final MethodNode method = analyzeMethod(false, env, args.first());
+            final IR.Method method = deferred ? deferMethod(locals, args.first())
+                    : analyzeMethod(false, env, new FrameDescriptor(), args.first());
 
-            if (method.isVariadic()) {
+            if (method.isVariadic) {
                 if (variadicMethod == null) {
                     variadicMethod = method;
                 } else {
                     throw new RuntimeException("Can't have more than 1 variadic overload");
                 }
-            }
-
-            if (methods[method.getMinArity()] == null) {
-                methods[method.getMinArity()] = method;
+            } else if (methods[method.minArity] == null) {
+                methods[method.minArity] = method;
             } else {
-                throw new RuntimeException("Can't have more than 1 overload with arity " + method.getMinArity());
+                throw new RuntimeException("Can't have more than 1 overload with arity " + method.minArity);
             }
+            allMethods.add(method);
         }
 
         if (variadicMethod != null) {
-            for (int arity = variadicMethod.getMinArity() + 1; arity < methods.length; ++arity) {
-                if (methods[arity] == null) {
-                    methods[arity] = variadicMethod;
-                } else {
+            // A fixed arity method may have as many params as the variadic one has required params (and takes
+            // precedence), but not more:
+            for (int arity = variadicMethod.minArity + 1; arity < methods.length; ++arity) {
+                if (methods[arity] != null) {
                     throw new RuntimeException(
                             "Can't have fixed arity function with more params than variadic function");
                 }
             }
         }
 
-        return new ClosureNode(methods, variadicMethod, env.closings.values().toArray(new Expr[0]));
+        return new IR.Fn(allMethods.toArray(new IR.Method[0]), env.closings.toArray(new IR[0]));
     }
 
-    private static MethodNode analyzeMethod(final boolean isStatic, final MethodsEnv env, final Object methodForm) {
-        if (methodForm instanceof ISeq) {
-            final ISeq methodSeq = (ISeq) methodForm;
+    // With `--coiffure.LazyAnalysis`, a fn with no locals in scope (e.g. the init of a toplevel `def`), which therefore
+    // has no clovers either, is analyzed one method at a time on the first call of each:
+    private static boolean isDeferrable(final FrameEnv locals) {
+        return Language.lazyAnalysis() && locals.namedSlots.count() == 0
+                && locals.getFrameRoot().parent instanceof ToplevelEnv;
+    }
 
-            final Object paramsObj = methodSeq.first();
+    // Only the params are checked now, so e.g. an unresolvable symbol in the body is reported on the first call (but
+    // with its position in the source, see `AnalysisException`):
+    private static IR.Method deferMethod(final FrameEnv locals, final Object methodForm) {
+        final Params params = Params.parse(false, methodParams(methodForm));
+        final FrameDescriptor frameDescriptor = new FrameDescriptor();
+        final Source source = locals.toplevel().source;
+        final Namespace ns = Namespaces.currentNS();
+
+        final IR.Deferred body = new IR.Deferred(() -> {
+            // Like a toplevel fn in `ns` but without the per-load state of the original `ToplevelEnv`:
+            final ToplevelEnv toplevel = new ToplevelEnv(source, Startup.begin(source), new HashSet<>(),
+                    new HashSet<>());
+            Var.pushThreadBindings(RT.mapUniqueKeys(RT.CURRENT_NS, ns));
+            try {
+                return Passes.DEFAULT.run(analyzeMethod(false, toplevel.pushFn(), frameDescriptor, methodForm));
+            } finally {
+                Var.popThreadBindings();
+            }
+        });
+        return new IR.Method(frameDescriptor, params.minArity, params.isVariadic, body, null,
+                section(locals, methodForm));
+    }
+
+    private static IPersistentVector methodParams(final Object methodForm) {
+        if (methodForm instanceof ISeq) {
+            final Object paramsObj = ((ISeq) methodForm).first();
             if (paramsObj instanceof IPersistentVector) {
-                final IPersistentVector paramsVec = (IPersistentVector) paramsObj;
-                final ISeq bodySeq = methodSeq.next();
+                return (IPersistentVector) paramsObj;
+            } else {
+                throw new RuntimeException("fn missing params vector");
+            }
+        } else {
+            throw new RuntimeException("Invalid fn method " + methodForm);
+        }
+    }
+
+    private static final class Params {
+        final List<Symbol> params;
+        final boolean isVariadic;
+        final int minArity;
+
+        private Params(final List<Symbol> params, final boolean isVariadic, final int minArity) {
+            this.params = params;
+            this.isVariadic = isVariadic;
+            this.minArity = minArity;
+        }
 
-                final List<Symbol> params = new ArrayList<>();
-                if (!isStatic) { params.add(Symbol.intern("self" + RT.nextID())); }
+        // Non-static methods get a leading self param for the closure:
+        static Params parse(final boolean isStatic, final IPersistentVector paramsVec) {
+            final List<Symbol> params = new ArrayList<>();
+            if (!isStatic) { params.add(Symbol.intern("self" + RT.nextID())); }
+
+            boolean isVariadic = false;
+
+            {
+                int i = 0;
+                for (; i < paramsVec.count(); ++i) {
+                    final Object paramObj = paramsVec.nth(i);
+                    if (paramObj instanceof Symbol) {
+                        final Symbol param = (Symbol) paramObj;
+                        if (param.getNamespace() != null) {
+                            throw new RuntimeException("Can't use qualified name as parameter: " + param);
+                        }
 
-                boolean isVariadic = false;
+                        if (Util.equiv(paramObj, _AMP_)) {
+                            isVariadic = true;
+                            ++i;
+                            break;
+                        } else {
+                            params.add(param);
+                        }
+                    } else {
+                        throw new RuntimeException("Non-symbol fn param: " + paramObj);
+                    }
+                }
 
-                {
-                    int i = 0;
-                    for (; i < paramsVec.count(); ++i) {
+                if (isVariadic) {
+                    if (i < paramsVec.count()) {
                         final Object paramObj = paramsVec.nth(i);
                         if (paramObj instanceof Symbol) {
                             final Symbol param = (Symbol) paramObj;
@@ -750,92 +1010,85 @@ public final class Analyzer {
                             }
 
                             if (Util.equiv(paramObj, _AMP_)) {
-                                isVariadic = true;
-                                ++i;
-                                break;
+                                throw new RuntimeException("Invalid parameter list: extra &");
                             } else {
                                 params.add(param);
+                                ++i;
                             }
-                        } else {
-                            throw new RuntimeException("Non-symbol fn param: " + paramObj);
-                        }
-                    }
 
-                    if (isVariadic) {
-                        if (i < paramsVec.count()) {
-                            final Object paramObj = paramsVec.nth(i);
-                            if (paramObj instanceof Symbol) {
-                                final Symbol param = (Symbol) paramObj;
-                                if (param.getNamespace() != null) {
-                                    throw new RuntimeException("Can't use qualified name as parameter: " + param);
-                                }
-
-                                if (Util.equiv(paramObj, _AMP_)) {
-                                    throw new RuntimeException("Invalid parameter list: extra &");
-                                } else {
-                                    params.add(param);
-                                    ++i;
-                                }
-
-                                if (i != paramsVec.count()) {
-                                    throw new RuntimeException("Invalid parameter list: extra param after rest param");
-                                }
-                            } else {
-                                throw new RuntimeException("Non-symbol fn param: " + paramObj);
+                            if (i != paramsVec.count()) {
+                                throw new RuntimeException("Invalid parameter list: extra param after rest param");
                             }
                         } else {
-                            throw new RuntimeException("Missing rest param name");
+                            throw new RuntimeException("Non-symbol fn param: " + paramObj);
                         }
+                    } else {
+                        throw new RuntimeException("Missing rest param name");
                     }
                 }
+            }
 
-                final MethodEnv locals = env.pushMethod(params);
-                int minArity = params.size();
-                if (!isStatic) { --minArity; }
-                if (isVariadic) { --minArity; }
-
-                final List<Expr> stmts = new ArrayList<>();
-                {
-                    int i = 0;
-                    for (final Symbol param : params) {
-                        stmts.add(LocalDefNodeGen.create(new ArgUse(i), locals.getSlot(param)));
-                        ++i;
-                    }
-                }
-
-                // TODO: Merge with similar code in `analyzeLoop`:
-                List<FrameSlot> paramSlots = locals.paramSlots();
-                if (!isStatic) { paramSlots = paramSlots.subList(1, paramSlots.size()); }
-                final Context.Tail ctx = Context.tail(paramSlots);
-                final Expr body = analyzeDo(locals, ctx, bodySeq);
-                if (ctx.recurred) {
-                    stmts.add(new Loop(body));
-                } else {
-                    stmts.add(body); // OPTIMIZE: Unnest Do:s
-                }
+            int minArity = params.size();
+            if (!isStatic) { --minArity; }
+            if (isVariadic) { --minArity; }
+            return new Params(params, isVariadic, minArity);
+        }
+    }
 
-                return new MethodNode(Language.getCurrentLanguage(), locals.frameDescriptor, minArity, isVariadic,
-                        Do.create(stmts.toArray(new Expr[0])));
-            } else {
-                throw new RuntimeException("fn missing params vector");
+    private static IR.Method analyzeMethod(final boolean isStatic, final MethodsEnv env,
+                                           final FrameDescriptor frameDescriptor, final Object methodForm
+    ) {
+        final IPersistentVector paramsVec = methodParams(methodForm);
+        final ISeq bodySeq = ((ISeq) methodForm).next();
+        final Params parsed = Params.parse(isStatic, paramsVec);
+        final List<Symbol> params = parsed.params;
+        final boolean isVariadic = parsed.isVariadic;
+        final MethodEnv locals = env.pushMethod(frameDescriptor, params);
+
+        final List<IR> stmts = new ArrayList<>();
+        {
+            int i = 0;
+            for (final Symbol param : params) {
+                final boolean isRest = isVariadic && i == params.size() - 1;
+                final Class<?> hint = isRest ? null : hint(param);
+                final FrameSlot slot = locals.getSlot(param);
+                locals.setSlotType(slot, hint);
+                stmts.add(new IR.LocalDef(slot, cast(hint, new IR.ArgUse(i, isRest))));
+                ++i;
             }
-        } else {
-            throw new RuntimeException("Invalid fn method " + methodForm);
         }
+
+        // TODO: Merge with similar code in `analyzeLoop`:
+        List<FrameSlot> paramSlots = locals.paramSlots();
+        if (!isStatic) { paramSlots = paramSlots.subList(1, paramSlots.size()); }
+        final Context.Tail ctx = Context.tail(paramSlots);
+        final IR body = analyzeDo(locals, ctx, bodySeq);
+        // A return type hint is on the params vector:
+        stmts.add(cast(hint(paramsVec), ctx.recurred ? new IR.Loop(body) : body));
+
+        return new IR.Method(locals.frameDescriptor, parsed.minArity, isVariadic,
+                new IR.Do(stmts.toArray(new IR[0])), null, section(env, methodForm));
     }
 
-    private static Expr analyzeCall(final FrameEnv locals, final Object calleeForm, ISeq argForms) {
-        final Expr callee = analyze(locals, Context.NONTAIL, calleeForm);
+    private static IR analyzeCall(final FrameEnv locals, final Object calleeForm, ISeq argForms) {
+        final IR callee = analyze(locals, Context.NONTAIL, calleeForm);
 
-        final List<Expr> args = new ArrayList<>();
+        final List<IR> args = new ArrayList<>();
         for (; argForms != null; argForms = argForms.next()) {
             args.add(analyze(locals, Context.NONTAIL, argForms.first()));
         }
 
-        return CallNode.create(callee, args.toArray(new Expr[0]));
+        final IR[] argsArr = args.toArray(new IR[0]);
+        final IR.Call call = new IR.Call(callee, argsArr);
+        if (callee instanceof IR.GlobalUse) {
+            final Optional<IR> inlined = Inlining.inline(((IR.GlobalUse) callee).var, argsArr, call,
+                    () -> locals.getFrameRoot().addSlot(FrameSlotKind.Illegal));
+            if (inlined.isPresent()) { return inlined.get(); }
+        }
+        return call;
     }
 
-    private static Expr analyzeDef(final FrameEnv locals, ISeq args) {
+    private static IR analyzeDef(final FrameEnv locals, ISeq args) {
         if (args != null) {
             final Object nameForm = args.first();
 
@@ -853,10 +1106,16 @@ public final class Analyzer {
 
                 final Var var = Namespaces.lookupVar(name, true);
                 if (var != null) {
+                    locals.toplevel().definitions.add(var);
                     if (init != null) {
-                        return GlobalDef.create(var, analyze(locals, Context.NONTAIL, init));
+                        IR initIR = analyze(locals, Context.NONTAIL, init);
+                        // Name the methods after the var for stack traces and profilers:
+                        if (initIR instanceof IR.Fn) {
+                            initIR = ((IR.Fn) initIR).named(var.toString()).at(initIR.section());
+                        }
+                        return new IR.GlobalDef(var, initIR, analyzeDefMeta(locals, name.meta()));
                     } else {
-                        return new Const(var);
+                        return new IR.Const(var);
                     }
                 } else {
                     throw new RuntimeException("Can't def a non-pre-existing qualified var");
@@ -869,7 +1128,18 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeAssign(final FrameEnv locals, ISeq argForms) {
+    // Like `Compiler.DefExpr`, the var meta is evaluated (so that e.g. `:inline` fns get created) but `:tag` is quoted:
+    private static IR analyzeDefMeta(final FrameEnv locals, IPersistentMap meta) {
+        if (meta != null && meta.count() > 0) {
+            final Object tag = meta.valAt(TAG_KEY);
+            if (tag != null) { meta = meta.assoc(TAG_KEY, RT.list(QUOTE, tag)); }
+            return analyze(locals, Context.NONTAIL, meta);
+        } else {
+            return null;
+        }
+    }
+
+    private static IR analyzeAssign(final FrameEnv locals, ISeq argForms) {
         if (argForms != null) {
             final Object lvalue = argForms.first();
 
@@ -887,7 +1157,7 @@ public final class Analyzer {
         throw new RuntimeException("Too few arguments to set!");
     }
 
-    private static Expr analyzeLRValues(final FrameEnv locals, final Object lForm, final Object rForm) {
+    private static IR analyzeLRValues(final FrameEnv locals, final Object lForm, final Object rForm) {
         if (lForm instanceof Symbol) {
             return analyzeSymbolLRValues(locals, (Symbol) lForm, rForm);
         } else if (lForm instanceof ISeq) {
@@ -903,12 +1173,20 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeSymbolLRValues(final FrameEnv locals, final Symbol name, final Object rForm) {
-        final Expr expr = locals.get(name);
+    private static IR analyzeSymbolLRValues(final FrameEnv locals, final Symbol name, final Object rForm) {
+        final IR expr = locals.get(name);
         if (expr == null) {
             final Object v = Namespaces.resolve(name);
             if (v instanceof Var) {
-                return new GlobalSet((Var) v, analyze(locals, Context.NONTAIL, rForm));
+                // The whole source is analyzed before any of it runs, unlike with the per-form evaluation of
+                // `Compiler.load` (or `StreamingToplevel`), so also do the usual `(set! *warn-on-reflection* true)`
+                // of the toplevel right away for the rest of the analysis:
+                if (v == Reflection.WARN_ON_REFLECTION && rForm instanceof Boolean
+                        && locals.getFrameRoot().parent instanceof ToplevelEnv
+                ) {
+                    Reflection.WARN_ON_REFLECTION.set(rForm);
+                }
+                return new IR.GlobalSet((Var) v, analyze(locals, Context.NONTAIL, rForm));
             } else {
                 throw new AssertionError("TODO");
             }
@@ -917,7 +1195,7 @@ public final class Analyzer {
         }
     }
 
-    private static Expr analyzeNew(final FrameEnv locals, ISeq argForms) {
+    private static IR analyzeNew(final FrameEnv locals, ISeq argForms, final SourceSection section) {
         if (argForms != null) {
             final Object classname = argForms.first();
             final Class<?> klass = (classname instanceof Symbol && locals.get((Symbol) classname) != null)
@@ -925,35 +1203,64 @@ public final class Analyzer {
                     : Namespaces.maybeClass(classname, false);
             if (klass == null) { throw new RuntimeException("Unable to resolve classname: " + classname); }
 
-            final ArrayList<Expr> args = new ArrayList<>();
+            final ArrayList<IR> args = new ArrayList<>();
             while ((argForms = argForms.next()) != null) {
                 args.add(analyze(locals, Context.NONTAIL, argForms.first()));
             }
+            final IR[] argsArr = args.toArray(new IR[0]);
 
-            return New.create(klass, args.toArray(new Expr[0]));
+            final Class<?>[] argTypes = argTypes(locals, argsArr);
+            final Constructor<?> constructor = Reflection.constructor(klass, argTypes);
+            if (constructor == null) { Reflection.warnConstructor(section, klass, argTypes); }
+            return new IR.New(klass, argsArr, constructor);
         } else {
             throw new RuntimeException("New expression missing class");
         }
     }
 
-    private static Expr analyzeDot(final FrameEnv locals, ISeq argForms) {
+    private static IR analyzeDot(final FrameEnv locals, ISeq argForms, final SourceSection section) {
         if (argForms != null) {
-            final Expr receiver = analyze(locals, Context.NONTAIL, argForms.first());
+            final Object receiverForm = argForms.first();
+            // (. Foo bar baz) where Foo names a class (and is not shadowed by a local) is a static method call:
+            final Class<?> klass = (receiverForm instanceof Symbol && locals.get((Symbol) receiverForm) == null)
+                    ? Namespaces.maybeClass(receiverForm, false)
+                    : null;
+            final IR receiver = (klass == null) ? analyze(locals, Context.NONTAIL, receiverForm) : null;
 
             if ((argForms = argForms.next()) != null) {
-                final Object msgForm = argForms.first();
+                Object msgForm = argForms.first();
+
+                if (msgForm instanceof ISeq) { // (. foo (bar baz)) -> (. foo bar baz)
+                    final ISeq msg = (ISeq) msgForm;
+                    msgForm = msg.first();
+                    argForms = RT.cons(msgForm, msg.next());
+                }
 
                 if (msgForm instanceof Symbol) {
                     final String methodName = ((Symbol) msgForm).getName();
 
-                    final List<Expr> args = new ArrayList<>();
+                    final List<IR> args = new ArrayList<>();
                     while ((argForms = argForms.next()) != null) {
                         args.add(analyze(locals, Context.NONTAIL, argForms.first()));
                     }
+                    final IR[] argsArr = args.toArray(new IR[0]);
 
-                    return InvokeInstance.create(receiver, methodName, args.toArray(new Expr[0]));
+                    final Class<?>[] argTypes = argTypes(locals, argsArr);
+                    if (klass != null) {
+                        final Method method = Reflection.method(klass, methodName, true, argTypes);
+                        if (method == null) { Reflection.warnStatic(section, klass, methodName, argTypes); }
+                        return new IR.InvokeStatic(klass, methodName, argsArr, method);
+                    } else {
+                        final Class<?> hint = hint(receiverForm);
+                        final Class<?> receiverType = (hint != null) ? hint : typeOf(locals, receiver);
+                        final Method method = (receiverType != null)
+                                ? Reflection.method(Reflection.box(receiverType), methodName, false, argTypes)
+                                : null;
+                        if (method == null) { Reflection.warnInstance(section, receiverType, methodName, argTypes); }
+                        return new IR.InvokeInstance(receiver, methodName, argsArr, method);
+                    }
                 } else {
-                    throw new AssertionError("TODO");
+                    throw new RuntimeException("Malformed member expression, expected method name, got: " + msgForm);
                 }
             }
         }
@@ -961,54 +1268,124 @@ public final class Analyzer {
         throw new RuntimeException("Too few arguments to .");
     }
 
-    private static Expr analyzeVector(final FrameEnv env, final IPersistentVector vec) {
-        final Expr[] elems = new Expr[vec.count()];
+    // # Type hints and inference
+
+    /** The class that the `:tag` of `form` names, if any. */
+    private static Class<?> hint(final Object form) {
+        final Symbol tag = tagOf(form);
+        return (tag != null) ? Reflection.tagClass(tag) : null;
+    }
+
+    /** Wraps `ir` in a primitive cast if `type` is `long` or `double`. */
+    private static IR cast(final Class<?> type, final IR ir) {
+        return (type == long.class || type == double.class) ? new IR.PrimitiveCast(type, ir) : ir;
+    }
+
+    /** The (possibly primitive) static type of the value of `ir` if known, else `null`. */
+    private static Class<?> typeOf(final FrameEnv env, final IR ir) {
+        if (ir instanceof IR.PrimitiveCast) {
+            return ((IR.PrimitiveCast) ir).type;
+        } else if (ir instanceof IR.Const) {
+            final Object value = ((IR.Const) ir).value;
+            return (value != null) ? value.getClass() : null;
+        } else if (ir instanceof IR.LocalUse) {
+            return env.getFrameRoot().slotType(((IR.LocalUse) ir).slot);
+        } else if (ir instanceof IR.New) {
+            return ((IR.New) ir).klass;
+        } else if (ir instanceof IR.InvokeInstance) {
+            return returnType(((IR.InvokeInstance) ir).method);
+        } else if (ir instanceof IR.InvokeStatic) {
+            return returnType(((IR.InvokeStatic) ir).method);
+        } else if (ir instanceof IR.GetStatic) {
+            return Reflection.box(((IR.GetStatic) ir).field.getType());
+        } else if (ir instanceof IR.Call) {
+            final IR.Call call = (IR.Call) ir;
+            if (call.callee instanceof IR.GlobalUse) {
+                final Var var = ((IR.GlobalUse) call.callee).var;
+                final Class<?> tag = hint(var); // ^String (defn foo ...) or (def ^{:tag String} foo ...)
+                return (tag != null) ? Reflection.box(tag) : Intrinsics.resultType(var, argTypes(env, call.args));
+            }
+            return null;
+        } else if (ir instanceof IR.Inlined) {
+            return typeOf(env, ((IR.Inlined) ir).call);
+        } else if (ir instanceof IR.Do) {
+            final IR[] stmts = ((IR.Do) ir).stmts;
+            return (stmts.length > 0) ? typeOf(env, stmts[stmts.length - 1]) : null;
+        } else {
+            return null;
+        }
+    }
+
+    // The reflective call boxes primitive results (and `void` is `nil`):
+    private static Class<?> returnType(final Method method) {
+        return (method != null && method.getReturnType() != void.class) ? Reflection.box(method.getReturnType()) : null;
+    }
+
+    private static Class<?>[] argTypes(final FrameEnv env, final IR[] args) {
+        final Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; ++i) {
+            types[i] = typeOf(env, args[i]);
+        }
+        return types;
+    }
+
+    private static IR analyzeVector(final FrameEnv env, final IPersistentVector vec) {
+        final IR[] elems = new IR[vec.count()];
         boolean constant = true;
 
         for (int i = 0; i < vec.count(); ++i) {
-            final Expr elem = analyze(env, Context.NONTAIL, vec.nth(i));
+            final IR elem = analyze(env, Context.NONTAIL, vec.nth(i));
             elems[i] = elem;
-            constant = constant && elem instanceof Const;
+            constant = constant && elem instanceof IR.Const;
         }
 
         if (vec instanceof IObj && ((IObj) vec).meta() != null) {
             throw new AssertionError("TODO");
         } else if (constant) {
             ITransientCollection constVals = PersistentVector.EMPTY.asTransient();
-            for (final Expr elem : elems) {
-                constVals = constVals.conj(((Const) elem).getValue());
+            for (final IR elem : elems) {
+                constVals = constVals.conj(((IR.Const) elem).value);
             }
-            return new Const(constVals.persistent());
+            return new IR.Const(constVals.persistent());
         } else {
-            return new VectorNode(elems);
+            return new IR.Vector(elems);
         }
     }
 
-    // FIXME: Check key uniqueness and optimize with `RT.mapUniqueKeys` based on that:
-    private static Expr analyzeMap(final FrameEnv env, final IPersistentMap map) {
-        final Expr[] kvs = new Expr[2 * map.count()];
+    private static IR analyzeMap(final FrameEnv env, final IPersistentMap map) {
+        final IR[] kvs = new IR[2 * map.count()];
         boolean constant = true;
 
         ISeq entries = RT.seq(map);
         for (int i = 0, j = 1; entries != null; entries = entries.next(), i += 2, j += 2) {
             final IMapEntry kv = (IMapEntry) entries.first();
-            final Expr k = analyze(env, Context.NONTAIL, kv.key());
-            final Expr v = analyze(env, Context.NONTAIL, kv.val());
+            final IR k = analyze(env, Context.NONTAIL, kv.key());
+            final IR v = analyze(env, Context.NONTAIL, kv.val());
             kvs[i] = k;
             kvs[j] = v;
-            constant = constant && k instanceof Const && v instanceof Const;
+            constant = constant && k instanceof IR.Const && v instanceof IR.Const;
         }
 
+        final IR.Map mapIR = new IR.Map(kvs);
+
         if (map instanceof IObj && ((IObj) map).meta() != null) {
             throw new AssertionError("TODO");
         } else if (constant) {
-            ITransientMap constMap = PersistentArrayMap.EMPTY.asTransient();
-            for (int i = 0, j = 1; j < kvs.length; i += 2, j += 2) {
-                constMap = constMap.assoc(((Const) kvs[i]).getValue(), ((Const) kvs[j]).getValue());
+            if (mapIR.uniqueConstKeys().isPresent()) {
+                final Object[] kvVals = new Object[kvs.length];
+                for (int i = 0; i < kvs.length; ++i) {
+                    kvVals[i] = ((IR.Const) kvs[i]).value;
+                }
+                return new IR.Const(RT.mapUniqueKeys(kvVals));
+            } else {
+                ITransientMap constMap = PersistentArrayMap.EMPTY.asTransient();
+                for (int i = 0, j = 1; j < kvs.length; i += 2, j += 2) {
+                    constMap = constMap.assoc(((IR.Const) kvs[i]).value, ((IR.Const) kvs[j]).value);
+                }
+                return new IR.Const(constMap.persistent());
             }
-            return new Const(constMap.persistent());
         } else {
-            return new MapNode(kvs);
+            return mapIR;
         }
     }
 }
@@ -1,18 +1,91 @@
 package com.deepbeginnings.coiffure;
 
+import clojure.lang.LineNumberingPushbackReader;
 import clojure.lang.RT;
 import clojure.lang.Var;
 
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.instrumentation.AllocationReporter;
+import org.graalvm.options.OptionValues;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 
 final class Context {
     private static TruffleLanguage.Env env;
+    private static Assumption envUnchanged = Truffle.getRuntime().createAssumption("env unchanged");
+    // The options that clojure.core was loaded with:
+    private static OptionValues coreOptions = null;
 
     public Context(final TruffleLanguage.Env env) {
-        this.env = env;
+        setEnv(env);
+        if (coreOptions == null) {
+            coreOptions = env.getOptions();
+            pushBindings(); // Loads clojure.core (in the static initializer of `RT`)
+        } else {
+            // E.g. a pre-initialized context was rejected by `Language.patchContext`:
+            bindStandardStreams(env);
+            pushBindings();
+            if (!Language.sameAnalysisOptions(coreOptions, env.getOptions())) {
+                coreOptions = env.getOptions();
+                try {
+                    RT.load("clojure/core");
+                } catch (final IOException | ClassNotFoundException exn) {
+                    throw new RuntimeException(exn);
+                }
+            }
+        }
+    }
 
+    private static void pushBindings() {
         // HACK: RT.init() does not work yet, so:
-        Var.pushThreadBindings(RT.mapUniqueKeys(RT.CURRENT_NS, RT.CURRENT_NS.deref()));
+        Var.pushThreadBindings(RT.mapUniqueKeys(RT.CURRENT_NS, RT.CURRENT_NS.deref(),
+                Reflection.WARN_ON_REFLECTION, Reflection.WARN_ON_REFLECTION.deref()));
+    }
+
+    /**
+     * Take over a context that was pre-initialized (with clojure.core loaded) while building a native image: the build
+     * time env, standard streams and thread bindings were left behind with the image builder.
+     */
+    void patch(final TruffleLanguage.Env newEnv) {
+        setEnv(newEnv);
+        bindStandardStreams(newEnv);
+        pushBindings();
+    }
+
+    private static void setEnv(final TruffleLanguage.Env newEnv) {
+        if (env != null) {
+            envUnchanged.invalidate();
+            envUnchanged = Truffle.getRuntime().createAssumption("env unchanged");
+        }
+        env = newEnv;
+    }
+
+    private static void bindStandardStreams(final TruffleLanguage.Env env) {
+        RT.OUT.bindRoot(new OutputStreamWriter(env.out()));
+        RT.IN.bindRoot(new LineNumberingPushbackReader(new InputStreamReader(env.in())));
+        RT.ERR.bindRoot(new PrintWriter(new OutputStreamWriter(env.err()), true));
     }
-}
 
+    // Static like `env` since clojure.core gets loaded (and analyzed) while this is being constructed:
+    static OptionValues options() { return env.getOptions(); }
+
+    static int inlineSize() { return env.getOptions().get(Language.INLINE_SIZE); }
+
+    static AllocationReporter allocationReporter() { return env.lookup(AllocationReporter.class); }
+
+    static Assumption envUnchanged() { return envUnchanged; }
+
+    static boolean lazyAnalysis() { return env.getOptions().get(Language.LAZY_ANALYSIS); }
+
+    static boolean streamingToplevel() { return env.getOptions().get(Language.STREAMING_TOPLEVEL); }
+
+    static String analysisCache() { return env.getOptions().get(Language.ANALYSIS_CACHE); }
+
+    static TruffleFile publicFile(final String path) { return env.getPublicTruffleFile(path); }
+}
@@ -1,5 +0,0 @@
-package com.deepbeginnings.coiffure;
-
-public interface IClosure {
-    Object clover(final int index);
-}
@@ -0,0 +1,224 @@
+package com.deepbeginnings.coiffure;
+
+import clojure.lang.Namespace;
+import clojure.lang.Numbers;
+import clojure.lang.Symbol;
+import clojure.lang.Util;
+import clojure.lang.Var;
+
+import com.deepbeginnings.coiffure.nodes.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+
+// Calls to the `clojure.core` numeric fns get dedicated nodes instead of a `CallNode`, like the `:inline`s of JVM
+// Clojure. The fns themselves (in core.clj) are still used for other arities and as values.
+public final class Intrinsics {
+    private Intrinsics() { throw new AssertionError(); } // "module" class; only static members
+
+    private static final Namespace CLOJURE_NS = Namespace.findOrCreate(Symbol.intern("clojure.core"));
+
+    @FunctionalInterface
+    private interface Intrinsic {
+        /** The node for a call with `args` or `null` if there is none for that arity. */
+        Expr create(Expr[] args);
+    }
+
+    @FunctionalInterface
+    private interface ResultType {
+        /** The static type of the result of a call with args of `argTypes` (`null` if unknown) or `null` if unknown. */
+        Class<?> of(Class<?>[] argTypes);
+    }
+
+    @FunctionalInterface
+    private interface Fold {
+        /** The value of a call with the constant `args` or `null` if there is no fold for them. */
+        Object apply(Object[] args);
+    }
+
+    private static final Map<Symbol, Intrinsic> INTRINSICS = new HashMap<>();
+    private static final Map<Symbol, Fold> FOLDS = new HashMap<>();
+    private static final Map<Symbol, ResultType> RESULT_TYPES = new HashMap<>();
+
+    private static void intrinsic(final String name, final Intrinsic intrinsic) {
+        INTRINSICS.put(Symbol.intern(name), intrinsic);
+    }
+
+    private static void fold(final String name, final Fold fold) { FOLDS.put(Symbol.intern(name), fold); }
+
+    // The folds use the same `Numbers` ops as the generic specializations of the nodes and only apply to numbers (for
+    // which those are defined) in the arities that the nodes do:
+
+    private static Fold unaryFold(final UnaryOperator<Object> f) {
+        return (args) -> (args.length == 1 && args[0] instanceof Number) ? f.apply(args[0]) : null;
+    }
+
+    private static Fold binaryFold(final BinaryOperator<Object> f) {
+        return (args) -> (args.length == 2 && args[0] instanceof Number && args[1] instanceof Number)
+                ? f.apply(args[0], args[1])
+                : null;
+    }
+
+    private static Fold naryFold(final BinaryOperator<Object> f) {
+        return (args) -> {
+            if (args.length < 2) { return null; }
+            for (final Object arg : args) {
+                if (!(arg instanceof Number)) { return null; }
+            }
+
+            Object value = args[0];
+            for (int i = 1; i < args.length; ++i) {
+                value = f.apply(value, args[i]);
+            }
+            return value;
+        };
+    }
+
+    private static void resultType(final ResultType resultType, final String... names) {
+        for (final String name : names) { RESULT_TYPES.put(Symbol.intern(name), resultType); }
+    }
+
+    // Like `Numbers` on longs and doubles, barring overflow (which throws instead of promoting for the non-' ops): any
+    // double arg makes a double, else all longs a long:
+    private static Class<?> arithmeticType(final Class<?>[] argTypes) {
+        Class<?> type = Long.class;
+        for (final Class<?> argType : argTypes) {
+            if (argType == double.class || argType == Double.class) {
+                type = Double.class;
+            } else if (argType != long.class && argType != Long.class) {
+                return null;
+            }
+        }
+        return type;
+    }
+
+    private static Intrinsic unary(final UnaryOperator<Expr> create) {
+        return (args) -> (args.length == 1) ? create.apply(args[0]) : null;
+    }
+
+    private static Intrinsic binary(final BinaryOperator<Expr> create) {
+        return (args) -> (args.length == 2) ? create.apply(args[0], args[1]) : null;
+    }
+
+    // (op a b c) -> (op (op a b) c):
+    private static Intrinsic nary(final BinaryOperator<Expr> create) {
+        return (args) -> {
+            if (args.length < 2) { return null; }
+
+            Expr expr = args[0];
+            for (int i = 1; i < args.length; ++i) {
+                expr = create.apply(expr, args[i]);
+            }
+            return expr;
+        };
+    }
+
+    static {
+        intrinsic("+", nary((x, y) -> Add.create(false, x, y)));
+        intrinsic("+'", nary((x, y) -> Add.create(true, x, y)));
+        intrinsic("*", nary((x, y) -> Multiply.create(false, x, y)));
+        intrinsic("*'", nary((x, y) -> Multiply.create(true, x, y)));
+
+        final Intrinsic negate = unary((x) -> Negate.create(false, x));
+        final Intrinsic subtract = nary((x, y) -> Subtract.create(false, x, y));
+        intrinsic("-", (args) -> (args.length == 1) ? negate.create(args) : subtract.create(args));
+        final Intrinsic negateP = unary((x) -> Negate.create(true, x));
+        final Intrinsic subtractP = nary((x, y) -> Subtract.create(true, x, y));
+        intrinsic("-'", (args) -> (args.length == 1) ? negateP.create(args) : subtractP.create(args));
+
+        intrinsic("inc", unary((x) -> Inc.create(false, x)));
+        intrinsic("inc'", unary((x) -> Inc.create(true, x)));
+        intrinsic("dec", unary((x) -> Dec.create(false, x)));
+        intrinsic("dec'", unary((x) -> Dec.create(true, x)));
+
+        intrinsic("<", binary(LessThan::create));
+        intrinsic("<=", binary(LessThanOrEqual::create));
+        intrinsic(">", binary(GreaterThan::create));
+        intrinsic(">=", binary(GreaterThanOrEqual::create));
+        intrinsic("==", binary(NumEquiv::create));
+        intrinsic("=", binary(Equiv::create));
+
+        intrinsic("zero?", unary(IsZero::create));
+        intrinsic("pos?", unary(IsPos::create));
+        intrinsic("neg?", unary(IsNeg::create));
+
+        fold("+", naryFold(Numbers::add));
+        fold("+'", naryFold(Numbers::addP));
+        fold("*", naryFold(Numbers::multiply));
+        fold("*'", naryFold(Numbers::multiplyP));
+
+        final Fold negateFold = unaryFold(Numbers::minus);
+        final Fold subtractFold = naryFold(Numbers::minus);
+        fold("-", (args) -> (args.length == 1) ? negateFold.apply(args) : subtractFold.apply(args));
+        final Fold negatePFold = unaryFold(Numbers::minusP);
+        final Fold subtractPFold = naryFold(Numbers::minusP);
+        fold("-'", (args) -> (args.length == 1) ? negatePFold.apply(args) : subtractPFold.apply(args));
+
+        fold("inc", unaryFold(Numbers::inc));
+        fold("inc'", unaryFold(Numbers::incP));
+        fold("dec", unaryFold(Numbers::dec));
+        fold("dec'", unaryFold(Numbers::decP));
+
+        fold("<", binaryFold(Numbers::lt));
+        fold("<=", binaryFold(Numbers::lte));
+        fold(">", binaryFold(Numbers::gt));
+        fold(">=", binaryFold(Numbers::gte));
+        fold("==", binaryFold(Numbers::equiv));
+        fold("=", (args) -> (args.length == 2) ? Util.equiv(args[0], args[1]) : null); // Constants are values
+
+        fold("zero?", unaryFold(Numbers::isZero));
+        fold("pos?", unaryFold(Numbers::isPos));
+        fold("neg?", unaryFold(Numbers::isNeg));
+
+        resultType(Intrinsics::arithmeticType, "+", "*", "-", "inc", "dec");
+        resultType((argTypes) -> Boolean.class, "<", "<=", ">", ">=", "==", "=", "zero?", "pos?", "neg?");
+    }
+
+    /** Does `var` hold one of these fns, which have no effects (besides maybe throwing)? */
+    public static boolean isPure(final Var var) { return var.ns == CLOJURE_NS && INTRINSICS.containsKey(var.sym); }
+
+    /**
+     * The value of calling `var` with the constant `args` if it is one of these fns and that can be computed at analysis
+     * time, i.e. there is a node for the arity, the args are of the types the node takes and it does not throw (e.g. on
+     * overflow, which is left to run time).
+     */
+    public static Optional<Object> fold(final Var var, final Object[] args) {
+        if (var.ns == CLOJURE_NS) {
+            final Fold fold = FOLDS.get(var.sym);
+            if (fold != null) {
+                try {
+                    return Optional.ofNullable(fold.apply(args));
+                } catch (final ArithmeticException exn) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * The (boxed) static type of the result of calling `var` with args of `argTypes` (`null` elements for unknown ones)
+     * if it is one of these fns and the type is known, else `null`.
+     */
+    public static Class<?> resultType(final Var var, final Class<?>[] argTypes) {
+        if (var.ns == CLOJURE_NS) {
+            final ResultType resultType = RESULT_TYPES.get(var.sym);
+            if (resultType != null) { return resultType.of(argTypes); }
+        }
+
+        return null;
+    }
+
+    public static Optional<Expr> create(final Var var, final Expr[] args) {
+        if (var.ns == CLOJURE_NS) {
+            final Intrinsic intrinsic = INTRINSICS.get(var.sym);
+            if (intrinsic != null) { return Optional.ofNullable(intrinsic.create(args)); }
+        }
+
+        return Optional.empty();
+    }
+}
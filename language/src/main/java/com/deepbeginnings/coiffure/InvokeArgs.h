@@ -5,6 +5,21 @@
 #define PARAMS3(param, ...) PARAM(param), PARAMS2(__VA_ARGS__)
 #define PARAMS4(param, ...) PARAM(param), PARAMS3(__VA_ARGS__)
 #define PARAMS5(param, ...) PARAM(param), PARAMS4(__VA_ARGS__)
+#define PARAMS6(param, ...) PARAM(param), PARAMS5(__VA_ARGS__)
+#define PARAMS7(param, ...) PARAM(param), PARAMS6(__VA_ARGS__)
+#define PARAMS8(param, ...) PARAM(param), PARAMS7(__VA_ARGS__)
+#define PARAMS9(param, ...) PARAM(param), PARAMS8(__VA_ARGS__)
+#define PARAMS10(param, ...) PARAM(param), PARAMS9(__VA_ARGS__)
+#define PARAMS11(param, ...) PARAM(param), PARAMS10(__VA_ARGS__)
+#define PARAMS12(param, ...) PARAM(param), PARAMS11(__VA_ARGS__)
+#define PARAMS13(param, ...) PARAM(param), PARAMS12(__VA_ARGS__)
+#define PARAMS14(param, ...) PARAM(param), PARAMS13(__VA_ARGS__)
+#define PARAMS15(param, ...) PARAM(param), PARAMS14(__VA_ARGS__)
+#define PARAMS16(param, ...) PARAM(param), PARAMS15(__VA_ARGS__)
+#define PARAMS17(param, ...) PARAM(param), PARAMS16(__VA_ARGS__)
+#define PARAMS18(param, ...) PARAM(param), PARAMS17(__VA_ARGS__)
+#define PARAMS19(param, ...) PARAM(param), PARAMS18(__VA_ARGS__)
+#define PARAMS20(param, ...) PARAM(param), PARAMS19(__VA_ARGS__)
 
 #define ARG(arg) Util.ret1(arg, arg = null)
 #define ARGS0()
@@ -13,3 +28,18 @@
 #define ARGS3(arg, ...) ARG(arg), ARGS2(__VA_ARGS__)
 #define ARGS4(arg, ...) ARG(arg), ARGS3(__VA_ARGS__)
 #define ARGS5(arg, ...) ARG(arg), ARGS4(__VA_ARGS__)
+#define ARGS6(arg, ...) ARG(arg), ARGS5(__VA_ARGS__)
+#define ARGS7(arg, ...) ARG(arg), ARGS6(__VA_ARGS__)
+#define ARGS8(arg, ...) ARG(arg), ARGS7(__VA_ARGS__)
+#define ARGS9(arg, ...) ARG(arg), ARGS8(__VA_ARGS__)
+#define ARGS10(arg, ...) ARG(arg), ARGS9(__VA_ARGS__)
+#define ARGS11(arg, ...) ARG(arg), ARGS10(__VA_ARGS__)
+#define ARGS12(arg, ...) ARG(arg), ARGS11(__VA_ARGS__)
+#define ARGS13(arg, ...) ARG(arg), ARGS12(__VA_ARGS__)
+#define ARGS14(arg, ...) ARG(arg), ARGS13(__VA_ARGS__)
+#define ARGS15(arg, ...) ARG(arg), ARGS14(__VA_ARGS__)
+#define ARGS16(arg, ...) ARG(arg), ARGS15(__VA_ARGS__)
+#define ARGS17(arg, ...) ARG(arg), ARGS16(__VA_ARGS__)
+#define ARGS18(arg, ...) ARG(arg), ARGS17(__VA_ARGS__)
+#define ARGS19(arg, ...) ARG(arg), ARGS18(__VA_ARGS__)
+#define ARGS20(arg, ...) ARG(arg), ARGS19(__VA_ARGS__)
@@ -2,30 +2,116 @@ package com.deepbeginnings.coiffure;
 
 import clojure.lang.*;
 
+import com.deepbeginnings.coiffure.ir.IR;
+import com.deepbeginnings.coiffure.ir.Lowering;
 import com.deepbeginnings.coiffure.nodes.MethodNode;
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Option;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.instrumentation.AllocationReporter;
+import com.oracle.truffle.api.instrumentation.ProvidedTags;
+import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.source.Source;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionStability;
+import org.graalvm.options.OptionValues;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Set;
 
 @TruffleLanguage.Registration(id = Language.ID, name = "Clojure", implementationName = "Coiffure",
         defaultMimeType = Language.MIME_TYPE, characterMimeTypes = Language.MIME_TYPE,
         contextPolicy = TruffleLanguage.ContextPolicy.EXCLUSIVE, fileTypeDetectors = FileTypeDetector.class)
+@ProvidedTags({StandardTags.RootTag.class, StandardTags.RootBodyTag.class, StandardTags.CallTag.class,
+        StandardTags.StatementTag.class, StandardTags.ExpressionTag.class})
 public final class Language extends TruffleLanguage<Context> {
     public static final String ID = "coiffure";
     public static final String MIME_TYPE = "application/clojure";
 
+    @Option(name = "InlineSize",
+            help = "Inline calls of global fns whose method body has at most this many IR nodes (0 to disable).",
+            category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL)
+    static final OptionKey<Integer> INLINE_SIZE = new OptionKey<>(0);
+
+    @Option(name = "AnalysisCache",
+            help = "Directory for caching analyzed code between runs, keeping only the latest entry of each source "
+                    + "file (empty to disable; requires IO access).",
+            category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL)
+    static final OptionKey<String> ANALYSIS_CACHE = new OptionKey<>("");
+
+    @Option(name = "LazyAnalysis",
+            help = "Analyze the methods of toplevel fns on their first call instead of when loading them.",
+            category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL)
+    static final OptionKey<Boolean> LAZY_ANALYSIS = new OptionKey<>(false);
+
+    @Option(name = "StreamingToplevel",
+            help = "Read, analyze and evaluate toplevel forms one at a time (the AnalysisCache is not used then).",
+            category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL)
+    static final OptionKey<Boolean> STREAMING_TOPLEVEL = new OptionKey<>(false);
+
     public static Language getCurrentLanguage() { return getCurrentLanguage(Language.class); }
 
+    /** The `--coiffure.InlineSize` of the current context, see `ir.Inlining`. */
+    public static int inlineSize() { return Context.inlineSize(); }
+
+    // The cache has no use for methods that have not been analyzed, so it takes precedence (when it is used at all):
+    static boolean lazyAnalysis() {
+        return Context.lazyAnalysis() && (Context.streamingToplevel() || Context.analysisCache().isEmpty());
+    }
+
+    /** Where nodes that allocate Clojure values report them (for `--memtracer`). */
+    public static AllocationReporter allocationReporter() { return Context.allocationReporter(); }
+
+    /**
+     * Valid until the context gets a new env (and thus `allocationReporter`), e.g. when the pre-initialized context of
+     * the native image is patched.
+     */
+    public static Assumption envUnchanged() { return Context.envUnchanged(); }
+
+    @Override
+    protected OptionDescriptors getOptionDescriptors() { return new LanguageOptionDescriptors(); }
+
     @Override
     protected Context createContext(final Env env) {
         return new Context(env);
     }
 
+    // For `-Dpolyglot.image-build-time.PreinitializeContexts=coiffure`, see native/make_native.sh. The pre-initialized
+    // clojure.core was analyzed with the build time options, so other analysis options (see below) need a fresh
+    // context, which reloads it:
+    @Override
+    protected boolean patchContext(final Context context, final Env newEnv) {
+        if (!sameAnalysisOptions(Context.options(), newEnv.getOptions())) { return false; }
+
+        context.patch(newEnv);
+        return true;
+    }
+
+    @Override
+    protected boolean areOptionsCompatible(final OptionValues firstOptions, final OptionValues newOptions) {
+        return sameAnalysisOptions(firstOptions, newOptions);
+    }
+
+    // The options that change the analyzed code (and so the loaded clojure.core). The others can differ from those that
+    // clojure.core was loaded with: `AnalysisCache` only stores the same IR that analysis produces (and is read on the
+    // next load anyway) and `StreamingToplevel` just evaluates the same forms in the same order one at a time.
+    private static final OptionKey<?>[] ANALYSIS_OPTIONS = {INLINE_SIZE, LAZY_ANALYSIS};
+
+    static boolean sameAnalysisOptions(final OptionValues options, final OptionValues otherOptions) {
+        for (final OptionKey<?> key : ANALYSIS_OPTIONS) {
+            if (!Objects.equals(options.get(key), otherOptions.get(key))) { return false; }
+        }
+        return true;
+    }
+
     @Override
     protected CallTarget parse(final ParsingRequest request) throws Exception {
         final Source source = request.getSource();
@@ -43,12 +129,47 @@ public final class Language extends TruffleLanguage<Context> {
     }
 
     public CallTarget parse(final Source source, final Object... args) throws Exception {
-        final PeekableReader reader = new PeekableReader(source.getReader());
+        if (Context.streamingToplevel()) {
+            return Truffle.getRuntime().createCallTarget(new StreamingToplevel(this, source, args));
+        }
+
+        final Startup startup = Startup.begin(source);
+
+        long start = startup.start();
+        final AnalysisCache cache = AnalysisCache.open(source, args);
+        IR.Method method = (cache != null) ? cache.load(source) : null;
+        startup.end(Startup.Phase.CACHE, start);
+
+        if (method == null) {
+            final Set<Var> expanders = new HashSet<>();
+            final Set<Var> definitions = new HashSet<>();
+            method = Analyzer.analyzeToplevel(source, source.createSection(0, source.getLength()), startup,
+                    read(source, startup, args), expanders, definitions);
+
+            if (cache != null) {
+                start = startup.start();
+                cache.store(source, method, expanders, definitions);
+                startup.end(Startup.Phase.CACHE, start);
+            }
+        }
+
+        start = startup.start();
+        final MethodNode methodNode = Lowering.lower(method);
+        startup.end(Startup.Phase.LOWER, start);
+        return startup.report(methodNode.callTarget());
+    }
+
+    // The toplevel method `([args...] forms...)` of `source`:
+    private static ISeq read(final Source source, final Startup startup, final Object[] args) throws Exception {
+        final Parser parser = new Parser(source);
 
         final List<Object> forms = new ArrayList<>();
         while (true) {
-            final Object form = Parser.tryRead(reader);
+            final long start = startup.start();
+            final Object form = parser.tryRead();
+            startup.end(Startup.Phase.READ, start);
             if (form == Parser.EOF) { break; }
+            startup.logForm(Startup.Phase.READ, start, form);
             forms.add(form);
         }
 
@@ -57,8 +178,6 @@ public final class Language extends TruffleLanguage<Context> {
             method = method.cons(formsIt.previous());
         }
         method = method.cons(RT.vector(args));
-
-        final MethodNode methodNode = Analyzer.analyzeToplevel((ISeq) method);
-        return Truffle.getRuntime().createCallTarget(methodNode);
+        return (ISeq) method;
     }
 }
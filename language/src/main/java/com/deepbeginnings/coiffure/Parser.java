@@ -2,27 +2,63 @@ package com.deepbeginnings.coiffure;
 
 import clojure.lang.*;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.ListIterator;
+import com.oracle.truffle.api.source.Source;
 
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads forms directly from the characters of a `Source` with an index cursor: tokens are sliced out of the input
+ * instead of accumulated char by char (symbols and keywords only on their first occurrence, see `SymbolTable`) and
+ * the elements of collections are gathered on a stack that is shared by all nesting levels, from which lists are
+ * consed up and vectors and maps created in one go.
+ */
 final class Parser {
-    private final PeekableReader input;
+    private final CharSequence input;
+    private final String file;
+    private final int end;
+    private int position; // of the next character
+    private int line; // 1-based, of `position`
+    private int lineStart; // the position of the first character of `line`
+    private final SymbolTable symbols;
+
+    // The elements of the collections being read, innermost on top:
+    private Object[] stack;
+    private int stackTop;
 
     public static final Object EOF = new Object();
 
     private static final Symbol QUOTE = Symbol.intern("quote");
     private static final Symbol VAR = Symbol.intern("var");
     private static final Keyword TAG_KEY = Keyword.intern(null, "tag");
+    // Source positions of lists, like `LispReader` records them (the end column is inclusive here though):
+    static final Keyword LINE_KEY = Keyword.intern(null, "line");
+    static final Keyword COLUMN_KEY = Keyword.intern(null, "column");
+    static final Keyword END_LINE_KEY = Keyword.intern(null, "end-line");
+    static final Keyword END_COLUMN_KEY = Keyword.intern(null, "end-column");
+    // ...and which source they are in, since e.g. a macro can return a (quoted) list from its own file:
+    static final Keyword FILE_KEY = Keyword.intern(null, "file");
+
+    Parser(final Source source) {
+        this.input = source.getCharacters();
+        this.file = file(source);
+        this.end = input.length();
+        this.position = 0;
+        this.line = 1;
+        this.lineStart = 0;
+        this.symbols = new SymbolTable();
+        this.stack = new Object[16];
+        this.stackTop = 0;
+    }
 
-    public static Object read(final PeekableReader input) throws IOException { return new Parser(input).read(); }
-
-    public static Object tryRead(final PeekableReader input) throws IOException { return new Parser(input).tryRead(); }
-
-    private Parser(final PeekableReader input) { this.input = input; }
+    /** The `:file` of the lists read from `source`: its path or, e.g. for a resource or a literal, its URI. */
+    static String file(final Source source) {
+        final String path = source.getPath();
+        return (path != null) ? path : source.getURI().toString();
+    }
 
-    private Object read() throws IOException {
+    /** The next form, throwing at EOF. */
+    Object read() throws IOException {
         final Object form = tryRead();
         if (form != EOF) {
             return form;
@@ -31,10 +67,11 @@ final class Parser {
         }
     }
 
-    private Object tryRead() throws IOException {
+    /** The next form or `EOF`. */
+    Object tryRead() throws IOException {
         skipWhitespace();
 
-        switch (input.peek()) {
+        switch (peek()) {
         case -1: return EOF;
 
         case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
@@ -56,30 +93,36 @@ final class Parser {
         }
     }
 
+    private int peek() { return (position < end) ? input.charAt(position) : -1; }
+
+    private int column() { return position - lineStart + 1; }
+
     private Object readHashy() throws IOException {
-        input.read(); // discard '#'
+        ++position; // discard '#'
 
-        switch (input.peek()) {
+        switch (peek()) {
         case '\'':
-            input.read(); // discard '\''
+            ++position; // discard '\''
             return RT.list(VAR, read());
 
         default: throw new AssertionError("TODO");
         }
     }
 
-    private void skipWhitespace() throws IOException {
-        while (true) {
-            final int c = input.peek();
-            if (Character.isWhitespace(c)) {
-                input.read();
+    private void skipWhitespace() {
+        while (position < end) {
+            final char c = input.charAt(position);
+            if (c == '\n') {
+                ++position;
+                ++line;
+                lineStart = position;
+            } else if (Character.isWhitespace(c)) {
+                ++position;
             } else if (c == ';') {
-                input.read(); // skip ';'
-
-                int cc;
+                // Leave the line terminator to the next iteration:
                 do {
-                    cc = input.read();
-                } while (cc != '\n' && cc != '\r' && cc != -1);
+                    ++position;
+                } while (position < end && input.charAt(position) != '\n' && input.charAt(position) != '\r');
             } else {
                 break;
             }
@@ -90,9 +133,11 @@ final class Parser {
         long n = 0;
         loop:
         while (true) {
-            switch (input.peek()) {
+            final int c = peek();
+            switch (c) {
             case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
-                n = 10 * n + Character.digit(input.read(), 10);
+                n = 10 * n + (c - '0');
+                ++position;
                 break;
             default: break loop;
             }
@@ -101,11 +146,27 @@ final class Parser {
     }
 
     private String readString() throws IOException {
-        input.read(); // discard '"'
-        final StringBuilder cs = new StringBuilder();
+        final int start = ++position; // discard '"'
 
+        // Strings without escapes are just slices of the input:
         while (true) {
-            int c = input.read();
+            final int c = peek();
+            if (c == '"') {
+                return input.subSequence(start, position++).toString();
+            } else if (c == '\\' || c == -1) {
+                break;
+            } else {
+                if (c == '\n') {
+                    ++line;
+                    lineStart = position + 1;
+                }
+                ++position;
+            }
+        }
+
+        final StringBuilder cs = new StringBuilder(position - start + 16).append(input, start, position);
+        while (true) {
+            int c = readChar();
 
             switch (c) {
             case -1: throw new RuntimeException("EOF while reading string");
@@ -113,7 +174,7 @@ final class Parser {
             case '"': return cs.toString();
 
             case '\\':
-                c = input.read();
+                c = readChar();
                 switch (c) {
                 case 'n': c = '\n';
                     break;
@@ -136,109 +197,122 @@ final class Parser {
         }
     }
 
-    private String readIdentifier() throws IOException {
-        if (isSymbolStart(input.peek())) {
-            final StringBuilder cs = new StringBuilder();
-            cs.append((char) input.read());
-
-            while (isSymbolPart(input.peek())) { cs.append((char) input.read()); }
+    // For the rare paths, e.g. string escapes:
+    private int readChar() {
+        final int c = peek();
+        if (c != -1) {
+            ++position;
+            if (c == '\n') {
+                ++line;
+                lineStart = position;
+            }
+        }
+        return c;
+    }
 
-            return cs.toString();
+    private SymbolTable.Entry readIdentifier() throws IOException {
+        int c = peek();
+        if (isSymbolStart(c)) {
+            final int start = position++;
+            int hash = SymbolTable.hash(0, (char) c);
+            while (isSymbolPart(c = peek())) {
+                hash = SymbolTable.hash(hash, (char) c);
+                ++position;
+            }
+            return symbols.get(input, start, position, hash);
         } else {
-            throw new IOException("Invalid symbol start: '" + (char) input.peek() + "'");
+            throw new IOException("Invalid symbol start: '" + (char) peek() + "'");
         }
     }
 
-    private static boolean isSymbolStart(final int c) { return isSymbolPart(c) && !Character.isDigit(c); }
+    private static boolean isSymbolStart(final int c) {
+        return isSymbolPart(c) && !Character.isDigit(c) && "'#".indexOf(c) == -1;
+    }
 
+    // NOTE: `'` and `#` are macro characters only at the start of a token, e.g. `+'` and `foo#` are symbols:
     private static boolean isSymbolPart(final int c) {
         return c != -1
                 && !Character.isWhitespace(c)
-                && "()[]{}'#".indexOf(c) == -1;
+                && "()[]{}".indexOf(c) == -1;
     }
 
     private Keyword readKeyword() throws IOException {
-        input.read(); // discard ':'
-        return Keyword.intern(Symbol.intern(readIdentifier()));
+        ++position; // discard ':'
+        return readIdentifier().keyword();
     }
 
-    private IPersistentCollection readList() throws IOException {
-        final ArrayList<Object> forms = new ArrayList<>();
-
-        input.read(); // discard '('
+    // Push the forms up to `close` onto the stack and return the stack top from before them:
+    private int readElements(final char close) throws IOException {
+        final int base = stackTop;
         while (true) {
             skipWhitespace();
 
-            if (input.peek() == ')') {
-                input.read(); // discard ')'
-                break;
+            if (peek() == close) {
+                return base;
             } else {
-                forms.add(read());
+                final Object form = read();
+                if (stackTop == stack.length) { stack = Arrays.copyOf(stack, 2 * stack.length); }
+                stack[stackTop++] = form;
             }
         }
+    }
 
-        IPersistentCollection coll = PersistentList.EMPTY;
-        for (final ListIterator<Object> formsIt = forms.listIterator(forms.size()); formsIt.hasPrevious(); ) {
-            coll = coll.cons(formsIt.previous());
-        }
-        return coll;
+    // Pop the stack down to `base` (without retaining the popped forms):
+    private void popElements(final int base) {
+        Arrays.fill(stack, base, stackTop, null);
+        stackTop = base;
     }
 
-    private IPersistentCollection readVector() throws IOException {
-        ITransientCollection coll = PersistentVector.EMPTY.asTransient();
+    private IPersistentCollection readList() throws IOException {
+        final int line = this.line;
+        final int column = column();
 
-        input.read(); // discard '['
-        while (true) {
-            skipWhitespace();
+        ++position; // discard '('
+        final int base = readElements(')');
+        final int endLine = this.line;
+        final int endColumn = column();
+        ++position; // discard ')'
 
-            if (input.peek() == ']') {
-                input.read(); // discard ']'
-                break;
-            } else {
-                coll = coll.conj(read());
-            }
-        }
+        IPersistentCollection coll = PersistentList.EMPTY;
+        for (int i = stackTop - 1; i >= base; --i) { coll = coll.cons(stack[i]); }
+        popElements(base);
 
-        return coll.persistent();
+        return (IPersistentCollection) ((IObj) coll).withMeta(RT.map(FILE_KEY, file, LINE_KEY, line, COLUMN_KEY, column,
+                END_LINE_KEY, endLine, END_COLUMN_KEY, endColumn));
     }
 
-    private IPersistentMap readMap() throws IOException {
-        final List<Object> kvs = new ArrayList<>();
+    private IPersistentCollection readVector() throws IOException {
+        ++position; // discard '['
+        final int base = readElements(']');
+        ++position; // discard ']'
 
-        input.read(); // discard '{'
-        while (true) {
-            skipWhitespace();
+        final IPersistentVector vector = LazilyPersistentVector.createOwning(Arrays.copyOfRange(stack, base, stackTop));
+        popElements(base);
+        return vector;
+    }
 
-            if (input.peek() == '}') {
-                input.read(); // discard '}'
-                break;
-            } else {
-                kvs.add(read()); // k
-                kvs.add(read()); // v
-            }
-        }
+    private IPersistentMap readMap() throws IOException {
+        ++position; // discard '{'
+        final int base = readElements('}');
+        ++position; // discard '}'
 
-        return RT.map(kvs.toArray(new Object[0]));
+        if ((stackTop - base) % 2 != 0) {
+            throw new IOException("Map literal must contain an even number of forms");
+        }
+        final IPersistentMap map = RT.map(Arrays.copyOfRange(stack, base, stackTop));
+        popElements(base);
+        return map;
     }
 
     private Object readQuoted() throws IOException {
-        input.read(); // discard '\''
+        ++position; // discard '\''
         return RT.list(QUOTE, read());
     }
 
-    private Object readAtom() throws IOException {
-        final String name = readIdentifier();
-
-        switch (name) {
-        case "nil": return null;
-        case "true": return Boolean.TRUE;
-        case "false": return Boolean.FALSE;
-        default: return Symbol.intern(name);
-        }
-    }
+    private Object readAtom() throws IOException { return readIdentifier().atom; }
 
     private Object readWithMeta() throws IOException {
-        input.read(); // discard '^'
+        ++position; // discard '^'
         Object meta = read();
         final Object v = read();
 
@@ -0,0 +1,206 @@
+package com.deepbeginnings.coiffure;
+
+import clojure.lang.RT;
+import clojure.lang.Reflector;
+import clojure.lang.Symbol;
+import clojure.lang.Var;
+
+import com.oracle.truffle.api.source.SourceSection;
+
+import java.io.PrintWriter;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Selection of interop methods and constructors at analysis time from the static types of the receiver and args (type
+// hints and what `Analyzer.typeOf` infers), like `Compiler.HostExpr` does. Calls that cannot be resolved are left to
+// the inline caches of `InvokeInstance` etc. and, if `*warn-on-reflection*` is true, reported.
+final class Reflection {
+    private Reflection() { throw new AssertionError(); } // "module" class; only static members
+
+    static final Var WARN_ON_REFLECTION = RT.var("clojure.core", "*warn-on-reflection*");
+
+    /** The method of `klass` that a call with args of `argTypes` (`null` where unknown) would select, if unique. */
+    static Method method(final Class<?> klass, final String methodName, final boolean isStatic,
+                         final Class<?>[] argTypes
+    ) {
+        final List<Method> methods = Reflector.getMethods(klass, argTypes.length, methodName, isStatic);
+        final Method method = select(methods, argTypes);
+        // Public methods of non-public classes would need `Reflector.getAsMethodOfAccessibleBase` and the receiver:
+        return (method != null && Modifier.isPublic(method.getDeclaringClass().getModifiers())) ? method : null;
+    }
+
+    static Constructor<?> constructor(final Class<?> klass, final Class<?>[] argTypes) {
+        return select(Reflector.getConstructors(klass, argTypes.length), argTypes);
+    }
+
+    private static <M extends Member> M select(final List<M> candidates, final Class<?>[] argTypes) {
+        final List<M> overloads = withoutBridges(candidates);
+        if (overloads.size() == 1) { return overloads.get(0); }
+
+        final List<M> matches = new ArrayList<>();
+        for (final M overload : overloads) {
+            if (matches(paramTypes(overload), argTypes)) { matches.add(overload); }
+        }
+        if (matches.size() == 1) { return matches.get(0); }
+
+        // E.g. both `Math.abs(long)` and `Math.abs(int)` accept a long but the former is exact:
+        M exactMatch = null;
+        for (final M match : matches) {
+            if (Arrays.equals(Arrays.stream(paramTypes(match)).map(Reflection::box).toArray(),
+                    Arrays.stream(argTypes).map(Reflection::box).toArray())) {
+                if (exactMatch != null) { return null; }
+                exactMatch = match;
+            }
+        }
+        if (exactMatch != null) { return exactMatch; }
+
+        // The most specific one, like `Compiler.getMatchingParams` (e.g. `List` over `Collection` over `Object`):
+        M best = null;
+        boolean tied = false;
+        for (final M match : matches) {
+            if (best == null || subsumes(paramTypes(match), paramTypes(best))) {
+                best = match;
+                tied = false;
+            } else if (!subsumes(paramTypes(best), paramTypes(match))) {
+                tied = true;
+            }
+        }
+        return tied ? null : best;
+    }
+
+    // `Reflector.getMethods` keeps e.g. both `StringBuilder.append(String)` and its bridge that returns
+    // `AbstractStringBuilder`, so drop the bridges that have a non-bridge with the same params:
+    private static <M extends Member> List<M> withoutBridges(final List<M> overloads) {
+        final List<M> nonBridges = new ArrayList<>();
+        for (final M overload : overloads) {
+            if (!(overload instanceof Method && ((Method) overload).isBridge()
+                    && overloads.stream().anyMatch((other) -> other instanceof Method && !((Method) other).isBridge()
+                    && Arrays.equals(((Method) other).getParameterTypes(), ((Method) overload).getParameterTypes())))
+            ) {
+                nonBridges.add(overload);
+            }
+        }
+        return nonBridges;
+    }
+
+    // Whether `paramTypes` are more specific than `otherParamTypes` (of the same length), as in `Compiler.subsumes`:
+    private static boolean subsumes(final Class<?>[] paramTypes, final Class<?>[] otherParamTypes) {
+        boolean better = false;
+        for (int i = 0; i < paramTypes.length; ++i) {
+            final Class<?> paramType = paramTypes[i];
+            final Class<?> otherParamType = otherParamTypes[i];
+            if (paramType != otherParamType) {
+                if ((!paramType.isPrimitive() && otherParamType.isPrimitive())
+                        || otherParamType.isAssignableFrom(paramType)
+                ) {
+                    better = true;
+                } else {
+                    return false;
+                }
+            }
+        }
+        return better;
+    }
+
+    private static Class<?>[] paramTypes(final Member member) {
+        return (member instanceof Method) ? ((Method) member).getParameterTypes()
+                : ((Constructor<?>) member).getParameterTypes();
+    }
+
+    private static boolean matches(final Class<?>[] paramTypes, final Class<?>[] argTypes) {
+        for (int i = 0; i < paramTypes.length; ++i) {
+            final Class<?> argType = argTypes[i];
+            if (argType == null) { return false; } // Unknown so cannot rule out the other overloads
+
+            // Primitive args get boxed for `Object` etc. params:
+            if (!(Reflector.paramArgTypeMatch(paramTypes[i], argType)
+                    || (argType.isPrimitive() && Reflector.paramArgTypeMatch(paramTypes[i], box(argType))))
+            ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The class of the values of `type` at run time, i.e. the wrapper class if it is primitive. */
+    static Class<?> box(final Class<?> type) { return MethodType.methodType(type).wrap().returnType(); }
+
+    /**
+     * Resolve a (primitive or class) type hint like `Compiler.HostExpr.tagToClass`, but to `null` if that fails (e.g.
+     * for the array hints like `^objects` that nothing here could use anyway).
+     */
+    static Class<?> tagClass(final Object tag) {
+        if (tag instanceof Class) {
+            return (Class<?>) tag;
+        } else if (tag instanceof Symbol) {
+            final Symbol sym = (Symbol) tag;
+            if (sym.getNamespace() == null) {
+                switch (sym.getName()) {
+                case "long": return long.class;
+                case "double": return double.class;
+                default: break;
+                }
+            }
+
+            return Namespaces.maybeClass(sym, false);
+        } else {
+            return null;
+        }
+    }
+
+    // # *warn-on-reflection*
+
+    private static boolean warnOnReflection() { return RT.booleanCast(WARN_ON_REFLECTION.deref()); }
+
+    static void warnInstance(final SourceSection section, final Class<?> receiverType, final String methodName,
+                             final Class<?>[] argTypes
+    ) {
+        if (warnOnReflection()) {
+            warn(section, (receiverType == null)
+                    ? String.format("call to method %s can't be resolved (target class is unknown).", methodName)
+                    : String.format("call to method %s on %s can't be resolved (argument types: %s).", methodName,
+                    receiverType.getName(), typeNames(argTypes)));
+        }
+    }
+
+    static void warnStatic(final SourceSection section, final Class<?> klass, final String methodName,
+                           final Class<?>[] argTypes
+    ) {
+        if (warnOnReflection()) {
+            warn(section, String.format("call to static method %s on %s can't be resolved (argument types: %s).", methodName,
+                    klass.getName(), typeNames(argTypes)));
+        }
+    }
+
+    static void warnConstructor(final SourceSection section, final Class<?> klass, final Class<?>[] argTypes) {
+        if (warnOnReflection()) {
+            warn(section, String.format("call to %s ctor can't be resolved (argument types: %s).", klass.getName(),
+                    typeNames(argTypes)));
+        }
+    }
+
+    private static String typeNames(final Class<?>[] types) {
+        return Arrays.stream(types)
+                .map((type) -> (type != null) ? type.getName() : "unknown")
+                .collect(Collectors.joining(", "));
+    }
+
+    // Like `Compiler` prints them, with the position of the form (when it has one):
+    private static void warn(final SourceSection section, final String message) {
+        final PrintWriter err = RT.errPrintWriter();
+        if (section != null) {
+            err.println(String.format("Reflection warning, %s:%d:%d - %s", section.getSource().getName(),
+                    section.getStartLine(), section.getStartColumn(), message));
+        } else {
+            err.println("Reflection warning - " + message);
+        }
+        err.flush();
+    }
+}
@@ -0,0 +1,151 @@
+package com.deepbeginnings.coiffure;
+
+import clojure.lang.IPersistentMap;
+import clojure.lang.RT;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.IndirectCallNode;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+
+import java.util.logging.Level;
+
+/**
+ * Timings of the startup phases of `Language.parse`: reading, macroexpansion, analysis (excluding macroexpansion), the
+ * IR `Passes`, loading from and storing to the `AnalysisCache`, lowering to nodes and the first execution of the
+ * result (or, for a `StreamingToplevel`, the evaluation of all of its forms). The totals for each source are logged at
+ * level `FINE` and the read and analysis times of each toplevel form at `FINER`, e.g. with
+ * `--log.coiffure.com.deepbeginnings.coiffure.Startup.level=FINE`. (Truffle compilation times are reported by
+ * `--engine.TraceCompilation` on GraalVM.)
+ *
+ * When the logger is off, `begin` returns a disabled instance that does not even read the clock.
+ */
+final class Startup {
+    private static final TruffleLogger LOGGER = TruffleLogger.getLogger(Language.ID, Startup.class);
+
+    enum Phase {
+        READ("read"),
+        MACROEXPAND("macroexpand"),
+        ANALYZE("analyze"),
+        PASSES("passes"),
+        CACHE("cache"),
+        LOWER("lower");
+
+        final String label;
+
+        Phase(final String label) { this.label = label; }
+    }
+
+    private static final Startup DISABLED = new Startup(null, false, false);
+
+    private final Source source;
+    private final boolean enabled;
+    private final boolean perForm;
+    private final long[] totals = new long[Phase.values().length];
+
+    private Startup(final Source source, final boolean enabled, final boolean perForm) {
+        this.source = source;
+        this.enabled = enabled;
+        this.perForm = perForm;
+    }
+
+    static Startup begin(final Source source) {
+        return LOGGER.isLoggable(Level.FINE) ? new Startup(source, true, LOGGER.isLoggable(Level.FINER)) : DISABLED;
+    }
+
+    /** The start time for `end` (0 if disabled). */
+    long start() { return enabled ? System.nanoTime() : 0; }
+
+    /** Add the time since `start` to `phase`. */
+    void end(final Phase phase, final long start) {
+        if (enabled) { totals[phase.ordinal()] += System.nanoTime() - start; }
+    }
+
+    /** Log the time since `start` that `phase` took for the toplevel `form` (at `FINER`; not added to the total). */
+    void logForm(final Phase phase, final long start, final Object form) {
+        if (perForm) {
+            LOGGER.finer(String.format("%s:%s: %s %.3f ms", source.getName(), line(form), phase.label,
+                    (System.nanoTime() - start) / 1e6));
+        }
+    }
+
+    private static Object line(final Object form) {
+        final IPersistentMap meta = RT.meta(form);
+        final Object line = (meta != null) ? meta.valAt(Parser.LINE_KEY) : null;
+        return (line != null) ? line : "?";
+    }
+
+    /** Log the phase totals and have the first execution of `callTarget` logged too. */
+    CallTarget report(final CallTarget callTarget) {
+        if (enabled) {
+            LOGGER.fine(totals());
+            return Truffle.getRuntime().createCallTarget(new FirstExecutionTimer(source, callTarget));
+        } else {
+            return callTarget;
+        }
+    }
+
+    /** Log the phase totals of a `StreamingToplevel` load, whose forms took `evaluation` to execute in between. */
+    void report(final long evaluation) {
+        if (enabled) { LOGGER.fine(String.format("%s, evaluation %.3f ms", totals(), evaluation / 1e6)); }
+    }
+
+    private String totals() {
+        // Macroexpansion happens during analysis but is reported separately:
+        totals[Phase.ANALYZE.ordinal()] -= totals[Phase.MACROEXPAND.ordinal()];
+
+        final StringBuilder report = new StringBuilder(source.getName()).append(':');
+        long total = 0;
+        for (final Phase phase : Phase.values()) {
+            final long time = totals[phase.ordinal()];
+            total += time;
+            report.append(String.format(" %s %.3f ms,", phase.label, time / 1e6));
+        }
+        report.append(String.format(" total %.3f ms", total / 1e6));
+        return report.toString();
+    }
+
+    // Calls the parse result, logging the time that its first call takes:
+    private static final class FirstExecutionTimer extends RootNode {
+        private final Source source;
+        private final CallTarget callTarget;
+        @Child private IndirectCallNode callNode = IndirectCallNode.create();
+        @CompilationFinal private boolean executed = false;
+
+        FirstExecutionTimer(final Source source, final CallTarget callTarget) {
+            super(Language.getCurrentLanguage());
+            this.source = source;
+            this.callTarget = callTarget;
+        }
+
+        @Override
+        public Object execute(final VirtualFrame frame) {
+            if (executed) {
+                return callNode.call(callTarget, frame.getArguments());
+            } else {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                executed = true;
+                final long start = System.nanoTime();
+                try {
+                    return callNode.call(callTarget, frame.getArguments());
+                } finally {
+                    logFirstExecution(System.nanoTime() - start);
+                }
+            }
+        }
+
+        @TruffleBoundary
+        private void logFirstExecution(final long elapsed) {
+            LOGGER.fine(String.format("%s: first execution %.3f ms", source.getName(), elapsed / 1e6));
+        }
+
+        @Override
+        public boolean isInternal() { return true; }
+    }
+}
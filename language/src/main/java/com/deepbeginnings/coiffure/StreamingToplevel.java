@@ -0,0 +1,79 @@
+package com.deepbeginnings.coiffure;
+
+import clojure.lang.IPersistentVector;
+import clojure.lang.RT;
+
+import com.deepbeginnings.coiffure.ir.IR;
+import com.deepbeginnings.coiffure.ir.Lowering;
+import com.deepbeginnings.coiffure.nodes.MethodNode;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+
+import java.io.IOException;
+import java.util.HashSet;
+
+/**
+ * The toplevel of a source with `--coiffure.StreamingToplevel`: each execution reads, analyzes and evaluates its forms
+ * one at a time like `clojure.lang.Compiler.load`. So a form is only analyzed after the ones before it have run (and
+ * e.g. defined the macros that it uses) and just one form is held in memory at a time. Each form (e.g. a `def`) becomes
+ * a toplevel method of its own, with the params `args`, whose call target is garbage after its single call.
+ */
+final class StreamingToplevel extends RootNode {
+    private final Source source;
+    private final IPersistentVector params;
+
+    StreamingToplevel(final Language language, final Source source, final Object[] args) {
+        super(language);
+        this.source = source;
+        this.params = RT.vector(args);
+    }
+
+    @Override
+    public Object execute(final VirtualFrame frame) { return load(frame.getArguments()); }
+
+    @TruffleBoundary
+    private Object load(final Object[] args) {
+        final Startup startup = Startup.begin(source);
+        final Parser parser = new Parser(source);
+        long evaluation = 0;
+
+        Object result = null;
+        while (true) {
+            long start = startup.start();
+            final Object form;
+            try {
+                form = parser.tryRead();
+            } catch (final IOException exn) {
+                throw new RuntimeException(exn);
+            }
+            startup.end(Startup.Phase.READ, start);
+            if (form == Parser.EOF) { break; }
+            startup.logForm(Startup.Phase.READ, start, form);
+
+            final SourceSection formSection = Analyzer.section(source, form);
+            final IR.Method method = Analyzer.analyzeToplevel(source,
+                    (formSection != null) ? formSection : getSourceSection(), startup, RT.list(params, form),
+                    new HashSet<>(), new HashSet<>());
+
+            start = startup.start();
+            final MethodNode methodNode = Lowering.lower(method);
+            startup.end(Startup.Phase.LOWER, start);
+
+            start = startup.start();
+            result = methodNode.callTarget().call(args);
+            evaluation += startup.start() - start;
+        }
+
+        startup.report(evaluation);
+        return result;
+    }
+
+    @Override
+    public String getName() { return source.getName(); }
+
+    @Override
+    public SourceSection getSourceSection() { return source.createSection(0, source.getLength()); }
+}
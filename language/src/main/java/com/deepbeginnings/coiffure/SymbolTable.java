@@ -0,0 +1,89 @@
+package com.deepbeginnings.coiffure;
+
+import clojure.lang.Keyword;
+import clojure.lang.Symbol;
+
+/**
+ * The symbol tokens that a `Parser` has seen, in an open addressing table keyed by their characters in the input. So a
+ * repeated token is looked up from its hash and a comparison of its characters instead of `Symbol.intern` slicing out a
+ * new `String`, splitting off the namespace and `String.intern`ing both (and for keywords, allocating a `WeakReference`
+ * for the `Keyword.intern` table on top of that).
+ *
+ * The entries are strong references, which is fine for the lifetime of a `Parser` (unlike for the global `Keyword`
+ * table).
+ */
+final class SymbolTable {
+    static final class Entry {
+        private final String name;
+        private final int hash;
+        final Symbol symbol;
+        /** What the token reads as by itself: `symbol` except for `nil`, `true` and `false`. */
+        final Object atom;
+        private Keyword keyword; // Lazily
+
+        private Entry(final String name, final int hash) {
+            this.name = name;
+            this.hash = hash;
+            this.symbol = Symbol.intern(name);
+
+            switch (name) {
+            case "nil": this.atom = null;
+                break;
+            case "true": this.atom = Boolean.TRUE;
+                break;
+            case "false": this.atom = Boolean.FALSE;
+                break;
+            default: this.atom = symbol;
+            }
+        }
+
+        Keyword keyword() {
+            if (keyword == null) { keyword = Keyword.intern(symbol); }
+            return keyword;
+        }
+    }
+
+    private Entry[] entries = new Entry[256]; // Length is a power of 2
+    private int size = 0;
+
+    /** The hash of a token from the hashes of its characters; the same as `String.hashCode`. */
+    static int hash(final int hash, final char c) { return 31 * hash + c; }
+
+    /** The entry for the token `input[start, end)`, whose `hash` is that of its characters. */
+    Entry get(final CharSequence input, final int start, final int end, final int hash) {
+        final int mask = entries.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final Entry entry = entries[i];
+            if (entry == null) {
+                final Entry newEntry = new Entry(input.subSequence(start, end).toString(), hash);
+                entries[i] = newEntry;
+                if (2 * ++size > entries.length) { grow(); }
+                return newEntry;
+            } else if (entry.hash == hash && matches(entry.name, input, start, end)) {
+                return entry;
+            }
+        }
+    }
+
+    private static boolean matches(final String name, final CharSequence input, final int start, final int end) {
+        if (name.length() != end - start) { return false; }
+
+        for (int i = 0; i < name.length(); ++i) {
+            if (name.charAt(i) != input.charAt(start + i)) { return false; }
+        }
+        return true;
+    }
+
+    private void grow() {
+        final Entry[] oldEntries = entries;
+        entries = new Entry[2 * oldEntries.length];
+        final int mask = entries.length - 1;
+        for (final Entry entry : oldEntries) {
+            if (entry != null) {
+                int i = entry.hash & mask;
+                while (entries[i] != null) { i = (i + 1) & mask; }
+                entries[i] = entry;
+            }
+        }
+    }
+}
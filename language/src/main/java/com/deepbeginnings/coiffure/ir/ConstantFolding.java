@@ -0,0 +1,33 @@
+package com.deepbeginnings.coiffure.ir;
+
+import com.deepbeginnings.coiffure.Intrinsics;
+
+import java.util.Optional;
+
+/** Evaluates calls of the intrinsic `clojure.core` fns (see `Intrinsics.fold`) on constants at analysis time. */
+public final class ConstantFolding implements Pass {
+    @Override
+    public String name() { return "constant-folding"; }
+
+    @Override
+    public IR run(final IR ir) { return ir.transform(ConstantFolding::fold); }
+
+    private static IR fold(final IR ir) {
+        if (ir instanceof IR.Call) {
+            final IR.Call call = (IR.Call) ir;
+
+            if (call.callee instanceof IR.GlobalUse) {
+                final Object[] argVals = new Object[call.args.length];
+                for (int i = 0; i < argVals.length; ++i) {
+                    if (!(call.args[i] instanceof IR.Const)) { return ir; }
+                    argVals[i] = ((IR.Const) call.args[i]).value;
+                }
+
+                final Optional<Object> value = Intrinsics.fold(((IR.GlobalUse) call.callee).var, argVals);
+                if (value.isPresent()) { return new IR.Const(value.get()); }
+            }
+        }
+
+        return ir;
+    }
+}
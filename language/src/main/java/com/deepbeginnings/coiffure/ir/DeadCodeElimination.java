@@ -0,0 +1,57 @@
+package com.deepbeginnings.coiffure.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Removes pure expressions from statement position, i.e. `do` statements other than the last one. */
+public final class DeadCodeElimination implements Pass {
+    @Override
+    public String name() { return "dead-code-elimination"; }
+
+    @Override
+    public IR run(final IR ir) { return ir.transform(DeadCodeElimination::eliminate); }
+
+    private static IR eliminate(final IR ir) {
+        if (ir instanceof IR.Do) {
+            final IR[] stmts = ((IR.Do) ir).stmts;
+
+            final List<IR> liveStmts = new ArrayList<>();
+            for (int i = 0; i < stmts.length; ++i) {
+                if (i == stmts.length - 1 || !isPure(stmts[i])) { liveStmts.add(stmts[i]); }
+            }
+
+            if (liveStmts.size() < stmts.length) { return new IR.Do(liveStmts.toArray(new IR[0])); }
+        }
+
+        return ir;
+    }
+
+    /** Can `ir` be skipped without changing the program, i.e. does it have no effects, including throwing? */
+    private static boolean isPure(final IR ir) {
+        if (ir instanceof IR.Const || ir instanceof IR.LocalUse || ir instanceof IR.ArgUse
+                || ir instanceof IR.CloverUse || ir instanceof IR.GlobalUse
+                || ir instanceof IR.Fn // Just allocates the closure
+        ) {
+            return true;
+        } else if (ir instanceof IR.Do) {
+            return allPure(((IR.Do) ir).stmts);
+        } else if (ir instanceof IR.If) {
+            final IR.If ifIR = (IR.If) ir;
+            return isPure(ifIR.cond) && isPure(ifIR.conseq) && isPure(ifIR.alt);
+        } else if (ir instanceof IR.Vector) {
+            return allPure(((IR.Vector) ir).elems);
+        } else if (ir instanceof IR.Map) { // Duplicate keys would throw:
+            final IR.Map map = (IR.Map) ir;
+            return map.uniqueConstKeys().isPresent() && allPure(map.kvs);
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean allPure(final IR[] irs) {
+        for (final IR ir : irs) {
+            if (!isPure(ir)) { return false; }
+        }
+        return true;
+    }
+}
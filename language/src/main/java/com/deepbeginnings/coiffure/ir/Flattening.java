@@ -0,0 +1,45 @@
+package com.deepbeginnings.coiffure.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splices nested `do`s (which includes `let*` and `loop` binding blocks) into the enclosing one. Since locals live in
+ * frame slots, scoping does not need the nesting.
+ */
+public final class Flattening implements Pass {
+    @Override
+    public String name() { return "flattening"; }
+
+    @Override
+    public IR run(final IR ir) { return ir.transform(Flattening::flatten); }
+
+    private static IR flatten(final IR ir) {
+        if (ir instanceof IR.Do) {
+            final IR[] stmts = ((IR.Do) ir).stmts;
+
+            boolean nested = false;
+            for (final IR stmt : stmts) {
+                nested = nested || stmt instanceof IR.Do;
+            }
+
+            if (nested) {
+                final List<IR> flatStmts = new ArrayList<>();
+                for (final IR stmt : stmts) {
+                    if (stmt instanceof IR.Do && ((IR.Do) stmt).stmts.length > 0) { // Already flat by `transform`
+                        for (final IR innerStmt : ((IR.Do) stmt).stmts) {
+                            flatStmts.add(innerStmt);
+                        }
+                    } else if (stmt instanceof IR.Do) { // `(do)` is `nil`, which matters in the last position
+                        flatStmts.add(new IR.Const(null));
+                    } else {
+                        flatStmts.add(stmt);
+                    }
+                }
+                return new IR.Do(flatStmts.toArray(new IR[0]));
+            }
+        }
+
+        return ir;
+    }
+}
@@ -0,0 +1,700 @@
+package com.deepbeginnings.coiffure.ir;
+
+import clojure.lang.IPersistentSet;
+import clojure.lang.PersistentHashSet;
+import clojure.lang.Var;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.source.SourceSection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * The intermediate representation between macroexpansion (in `Analyzer`) and Truffle nodes. Names have already been
+ * resolved to frame slots, clovers, vars and classes, so the IR is just a tree of operations that the `Passes` can
+ * rewrite before `Lowering` builds the corresponding nodes.
+ *
+ * IR trees are immutable; passes build new trees with `transform` and `mapChildren`. The only exception is the source
+ * section, which `at` fills in (once) right after the node has been created.
+ */
+public abstract class IR {
+    private SourceSection section; // nullable
+
+    private IR() {}
+
+    /** The source code this was analyzed from, which `Lowering` gives to the nodes for instrumentation. */
+    public final SourceSection section() { return section; }
+
+    /** Sets the source section unless this already has one, e.g. from a macroexpansion of the form. */
+    public final IR at(final SourceSection section) {
+        if (this.section == null) { this.section = section; }
+        return this;
+    }
+
+    /** A copy of this with `f` applied to each direct child (in evaluation order), or `this` if they are unchanged. */
+    public abstract IR mapChildren(UnaryOperator<IR> f);
+
+    /** Applies `f` bottom-up, i.e. to each child `transform`ed already. Replacements inherit the source section. */
+    public final IR transform(final UnaryOperator<IR> f) {
+        return f.apply(mapChildren((child) -> child.transform(f))).at(section);
+    }
+
+    /** The number of IR nodes in this tree (including fn bodies). */
+    public final int size() {
+        final int[] size = {1};
+        mapChildren((child) -> {
+            size[0] += child.size();
+            return child;
+        });
+        return size[0];
+    }
+
+    /** Per-kind operations on IR such as `Lowering` (passes usually get by with `transform` and `instanceof`). */
+    public interface Visitor<R> {
+        R visit(Const ir);
+        R visit(LocalUse ir);
+        R visit(ArgUse ir);
+        R visit(CloverUse ir);
+        R visit(GlobalUse ir);
+        R visit(GetStatic ir);
+        R visit(LocalDef ir);
+        R visit(GlobalDef ir);
+        R visit(GlobalSet ir);
+        R visit(Do ir);
+        R visit(If ir);
+        R visit(Loop ir);
+        R visit(Recur ir);
+        R visit(Throw ir);
+        R visit(Try ir);
+        R visit(Locking ir);
+        R visit(Fn ir);
+        R visit(Deferred ir);
+        R visit(Call ir);
+        R visit(MethodCall ir);
+        R visit(Inlined ir);
+        R visit(PrimitiveCast ir);
+        R visit(New ir);
+        R visit(InvokeInstance ir);
+        R visit(InvokeStatic ir);
+        R visit(Vector ir);
+        R visit(Map ir);
+    }
+
+    public abstract <R> R accept(Visitor<R> visitor);
+
+    private static IR[] mapAll(final IR[] irs, final UnaryOperator<IR> f) {
+        IR[] res = irs;
+        for (int i = 0; i < irs.length; ++i) {
+            final IR ir = f.apply(irs[i]);
+            if (ir != irs[i]) {
+                if (res == irs) { res = irs.clone(); }
+                res[i] = ir;
+            }
+        }
+        return res;
+    }
+
+    // # Leaves
+
+    public static final class Const extends IR {
+        public final Object value;
+
+        public Const(final Object value) { this.value = value; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) { return this; }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class LocalUse extends IR {
+        public final FrameSlot slot;
+
+        public LocalUse(final FrameSlot slot) { this.slot = slot; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) { return this; }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class ArgUse extends IR {
+        public final int index;
+        public final boolean isRest;
+
+        public ArgUse(final int index, final boolean isRest) {
+            this.index = index;
+            this.isRest = isRest;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) { return this; }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class CloverUse extends IR {
+        public final FrameSlot self;
+        public final int index;
+
+        public CloverUse(final FrameSlot self, final int index) {
+            this.self = self;
+            this.index = index;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) { return this; }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class GlobalUse extends IR {
+        public final Var var;
+
+        public GlobalUse(final Var var) { this.var = var; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) { return this; }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class GetStatic extends IR {
+        public final Field field;
+
+        public GetStatic(final Field field) { this.field = field; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) { return this; }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    // # Definitions and assignments
+
+    public static final class LocalDef extends IR {
+        public final FrameSlot slot;
+        public final IR init;
+
+        public LocalDef(final FrameSlot slot, final IR init) {
+            this.slot = slot;
+            this.init = init;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR init = f.apply(this.init);
+            return (init != this.init) ? new LocalDef(slot, init) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class GlobalDef extends IR {
+        public final Var var;
+        public final IR init;
+        public final IR meta; // nullable
+
+        public GlobalDef(final Var var, final IR init, final IR meta) {
+            this.var = var;
+            this.init = init;
+            this.meta = meta;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR init = f.apply(this.init);
+            final IR meta = (this.meta != null) ? f.apply(this.meta) : null;
+            return (init != this.init || meta != this.meta) ? new GlobalDef(var, init, meta) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class GlobalSet extends IR {
+        public final Var var;
+        public final IR init;
+
+        public GlobalSet(final Var var, final IR init) {
+            this.var = var;
+            this.init = init;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR init = f.apply(this.init);
+            return (init != this.init) ? new GlobalSet(var, init) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    // # Control
+
+    /** Also the IR of `let*` and `loop` bindings, which are just `LocalDef` statements. */
+    public static final class Do extends IR {
+        public final IR[] stmts;
+
+        public Do(final IR[] stmts) { this.stmts = stmts; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] stmts = mapAll(this.stmts, f);
+            return (stmts != this.stmts) ? new Do(stmts) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class If extends IR {
+        public final IR cond;
+        public final IR conseq;
+        public final IR alt;
+
+        public If(final IR cond, final IR conseq, final IR alt) {
+            this.cond = cond;
+            this.conseq = conseq;
+            this.alt = alt;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR cond = f.apply(this.cond);
+            final IR conseq = f.apply(this.conseq);
+            final IR alt = f.apply(this.alt);
+            return (cond != this.cond || conseq != this.conseq || alt != this.alt) ? new If(cond, conseq, alt) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class Loop extends IR {
+        public final IR body;
+
+        public Loop(final IR body) { this.body = body; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR body = f.apply(this.body);
+            return (body != this.body) ? new Loop(body) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class Recur extends IR {
+        public final IR[] argDefs;
+
+        public Recur(final IR[] argDefs) { this.argDefs = argDefs; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] argDefs = mapAll(this.argDefs, f);
+            return (argDefs != this.argDefs) ? new Recur(argDefs) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class Throw extends IR {
+        public final IR exn;
+
+        public Throw(final IR exn) { this.exn = exn; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR exn = f.apply(this.exn);
+            return (exn != this.exn) ? new Throw(exn) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class Catch {
+        public final Class<? extends Throwable> catcheeClass;
+        public final FrameSlot catcheeSlot;
+        public final IR body;
+
+        public Catch(final Class<? extends Throwable> catcheeClass, final FrameSlot catcheeSlot, final IR body) {
+            this.catcheeClass = catcheeClass;
+            this.catcheeSlot = catcheeSlot;
+            this.body = body;
+        }
+    }
+
+    public static final class Try extends IR {
+        public final IR body;
+        public final Catch[] catches;
+        public final IR finallyExpr; // nullable
+
+        public Try(final IR body, final Catch[] catches, final IR finallyExpr) {
+            this.body = body;
+            this.catches = catches;
+            this.finallyExpr = finallyExpr;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR body = f.apply(this.body);
+            boolean changed = body != this.body;
+
+            final Catch[] catches = new Catch[this.catches.length];
+            for (int i = 0; i < catches.length; ++i) {
+                final Catch c = this.catches[i];
+                final IR catchBody = f.apply(c.body);
+                catches[i] = (catchBody != c.body) ? new Catch(c.catcheeClass, c.catcheeSlot, catchBody) : c;
+                changed = changed || catchBody != c.body;
+            }
+
+            final IR finallyExpr = (this.finallyExpr != null) ? f.apply(this.finallyExpr) : null;
+            changed = changed || finallyExpr != this.finallyExpr;
+
+            return changed ? new Try(body, catches, finallyExpr) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class Locking extends IR {
+        public final IR lock;
+        public final IR body;
+
+        public Locking(final IR lock, final IR body) {
+            this.lock = lock;
+            this.body = body;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR lock = f.apply(this.lock);
+            final IR body = f.apply(this.body);
+            return (lock != this.lock || body != this.body) ? new Locking(lock, body) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    // # Fns
+
+    public static final class Method {
+        public final FrameDescriptor frameDescriptor;
+        public final int minArity;
+        public final boolean isVariadic;
+        public final IR body;
+        public final String name; // nullable
+        public final SourceSection section; // nullable
+
+        public Method(final FrameDescriptor frameDescriptor, final int minArity, final boolean isVariadic,
+                      final IR body, final String name, final SourceSection section
+        ) {
+            this.frameDescriptor = frameDescriptor;
+            this.minArity = minArity;
+            this.isVariadic = isVariadic;
+            this.body = body;
+            this.name = name;
+            this.section = section;
+        }
+
+        public Method withBody(final IR body) {
+            return (body != this.body) ? new Method(frameDescriptor, minArity, isVariadic, body, name, section) : this;
+        }
+
+        public Method named(final String name) {
+            return new Method(frameDescriptor, minArity, isVariadic, body, name, section);
+        }
+    }
+
+    public static final class Fn extends IR {
+        public final Method[] methods; // The fixed arity methods and the variadic one (if any)
+        public final IR[] closings;
+
+        public Fn(final Method[] methods, final IR[] closings) {
+            this.methods = methods;
+            this.closings = closings;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] closings = mapAll(this.closings, f);
+            boolean changed = closings != this.closings;
+
+            final Method[] methods = new Method[this.methods.length];
+            for (int i = 0; i < methods.length; ++i) {
+                methods[i] = this.methods[i].withBody(f.apply(this.methods[i].body));
+                changed = changed || methods[i] != this.methods[i];
+            }
+
+            return changed ? new Fn(methods, closings) : this;
+        }
+
+        public Fn named(final String name) {
+            final Method[] methods = new Method[this.methods.length];
+            for (int i = 0; i < methods.length; ++i) {
+                methods[i] = this.methods[i].named(name);
+            }
+            return new Fn(methods, closings);
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    /**
+     * The body of a fn method that has not been analyzed yet (see `--coiffure.LazyAnalysis`). `analyze` produces the
+     * whole (optimized) method into the `frameDescriptor` of the enclosing `Method` when it is first called. Since the
+     * fn has no clovers, the passes have nothing to do with this before that.
+     */
+    public static final class Deferred extends IR {
+        public final Supplier<Method> analyze;
+
+        public Deferred(final Supplier<Method> analyze) { this.analyze = analyze; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) { return this; }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class Call extends IR {
+        public final IR callee;
+        public final IR[] args;
+
+        public Call(final IR callee, final IR[] args) {
+            this.callee = callee;
+            this.args = args;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR callee = f.apply(this.callee);
+            final IR[] args = mapAll(this.args, f);
+            return (callee != this.callee || args != this.args) ? new Call(callee, args) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    /**
+     * A direct call of a lambda-lifted `method` (see `LambdaLifting`): `args` are the call args followed by the values
+     * of the clovers, which the method body reads as extra args.
+     */
+    public static final class MethodCall extends IR {
+        public final Method method;
+        public final IR[] args;
+
+        public MethodCall(final Method method, final IR[] args) {
+            this.method = method;
+            this.args = args;
+        }
+
+        // NOTE: Does not map `method.body`, which is shared with the other calls of `method` (and was analyzed in the
+        // frame of the method, not this one):
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] args = mapAll(this.args, f);
+            return (args != this.args) ? new MethodCall(method, args) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    /**
+     * A call of a global fn with the callee `body` spliced in (see `Inlining`). `call` is the original call, which is
+     * used instead once `stableRoot` (of the var) has been invalidated.
+     */
+    public static final class Inlined extends IR {
+        public final Assumption stableRoot;
+        public final IR body;
+        public final IR call;
+
+        public Inlined(final Assumption stableRoot, final IR body, final IR call) {
+            this.stableRoot = stableRoot;
+            this.body = body;
+            this.call = call;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR body = f.apply(this.body);
+            final IR call = f.apply(this.call);
+            return (body != this.body || call != this.call) ? new Inlined(stableRoot, body, call) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    /** `(long expr)` or `(double expr)` for a `^long` or `^double` hint (`type` is `long.class` or `double.class`). */
+    public static final class PrimitiveCast extends IR {
+        public final Class<?> type;
+        public final IR expr;
+
+        public PrimitiveCast(final Class<?> type, final IR expr) {
+            this.type = type;
+            this.expr = expr;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR expr = f.apply(this.expr);
+            return (expr != this.expr) ? new PrimitiveCast(type, expr) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    // # Interop
+
+    // The resolved `constructor`s and `method`s below were selected at analysis time from the static types of the
+    // args (and receiver); they are `null` if that was not possible, so that the selection is left to run time.
+
+    public static final class New extends IR {
+        public final Class<?> klass;
+        public final IR[] args;
+        public final Constructor<?> constructor; // nullable
+
+        public New(final Class<?> klass, final IR[] args, final Constructor<?> constructor) {
+            this.klass = klass;
+            this.args = args;
+            this.constructor = constructor;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] args = mapAll(this.args, f);
+            return (args != this.args) ? new New(klass, args, constructor) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class InvokeInstance extends IR {
+        public final IR receiver;
+        public final String methodName;
+        public final IR[] args;
+        public final java.lang.reflect.Method method; // nullable
+
+        public InvokeInstance(final IR receiver, final String methodName, final IR[] args,
+                              final java.lang.reflect.Method method
+        ) {
+            this.receiver = receiver;
+            this.methodName = methodName;
+            this.args = args;
+            this.method = method;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR receiver = f.apply(this.receiver);
+            final IR[] args = mapAll(this.args, f);
+            return (receiver != this.receiver || args != this.args)
+                    ? new InvokeInstance(receiver, methodName, args, method)
+                    : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class InvokeStatic extends IR {
+        public final Class<?> klass;
+        public final String methodName;
+        public final IR[] args;
+        public final java.lang.reflect.Method method; // nullable
+
+        public InvokeStatic(final Class<?> klass, final String methodName, final IR[] args,
+                            final java.lang.reflect.Method method
+        ) {
+            this.klass = klass;
+            this.methodName = methodName;
+            this.args = args;
+            this.method = method;
+        }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] args = mapAll(this.args, f);
+            return (args != this.args) ? new InvokeStatic(klass, methodName, args, method) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    // # Collections
+
+    public static final class Vector extends IR {
+        public final IR[] elems;
+
+        public Vector(final IR[] elems) { this.elems = elems; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] elems = mapAll(this.elems, f);
+            return (elems != this.elems) ? new Vector(elems) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+    }
+
+    public static final class Map extends IR {
+        public final IR[] kvs;
+
+        public Map(final IR[] kvs) { this.kvs = kvs; }
+
+        @Override
+        public IR mapChildren(final UnaryOperator<IR> f) {
+            final IR[] kvs = mapAll(this.kvs, f);
+            return (kvs != this.kvs) ? new Map(kvs) : this;
+        }
+
+        @Override
+        public <R> R accept(final Visitor<R> visitor) { return visitor.visit(this); }
+
+        /** The keys if they are all constants and distinct, so that the map can be built without checking them. */
+        public Optional<Object[]> uniqueConstKeys() {
+            final Object[] keys = new Object[kvs.length / 2];
+            IPersistentSet seen = PersistentHashSet.EMPTY;
+
+            for (int i = 0; i < keys.length; ++i) {
+                final IR k = kvs[2 * i];
+                if (!(k instanceof Const)) { return Optional.empty(); }
+
+                final Object key = ((Const) k).value;
+                if (seen.contains(key)) { return Optional.empty(); }
+                seen = (IPersistentSet) seen.cons(key);
+                keys[i] = key;
+            }
+
+            return Optional.of(keys);
+        }
+    }
+}
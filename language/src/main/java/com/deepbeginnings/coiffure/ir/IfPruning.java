@@ -0,0 +1,23 @@
+package com.deepbeginnings.coiffure.ir;
+
+import clojure.lang.RT;
+
+/** Replaces `if`s that have a constant condition with the branch that would be taken. */
+public final class IfPruning implements Pass {
+    @Override
+    public String name() { return "if-pruning"; }
+
+    @Override
+    public IR run(final IR ir) { return ir.transform(IfPruning::prune); }
+
+    private static IR prune(final IR ir) {
+        if (ir instanceof IR.If) {
+            final IR.If ifIR = (IR.If) ir;
+            if (ifIR.cond instanceof IR.Const) {
+                return RT.booleanCast(((IR.Const) ifIR.cond).value) ? ifIR.conseq : ifIR.alt;
+            }
+        }
+
+        return ir;
+    }
+}
@@ -0,0 +1,124 @@
+package com.deepbeginnings.coiffure.ir;
+
+import clojure.lang.Var;
+
+import com.deepbeginnings.coiffure.Closure;
+import com.deepbeginnings.coiffure.Intrinsics;
+import com.deepbeginnings.coiffure.Language;
+import com.deepbeginnings.coiffure.nodes.MethodNode;
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.frame.FrameSlot;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Inlining of calls to small global fns, which is off unless `--coiffure.InlineSize` is positive.
+ *
+ * `Lowering` keeps the IR of fn methods that are small enough (and have no clovers, `recur` or rest param) in their
+ * `MethodNode`. When `Analyzer` then sees a call to a var whose root is such a fn, the method body is spliced into the
+ * caller with its locals moved to fresh slots of the caller frame and the param definitions taking the args directly.
+ * Like `GlobalUse`, the result relies on the stable root assumption of the var and falls back to the actual call once
+ * the var has been redefined.
+ */
+public final class Inlining {
+    private Inlining() { throw new AssertionError(); } // "module" class; only static members
+
+    /** Should calls of `method` (of a fn without clovers) be inlined? */
+    static boolean isInlinable(final IR.Method method) {
+        final int maxSize = Language.inlineSize();
+        return maxSize > 0 && !method.isVariadic && !(method.body instanceof IR.Deferred)
+                && method.body.size() <= maxSize && !containsRecur(method.body);
+    }
+
+    private static boolean containsRecur(final IR ir) {
+        final boolean[] recurs = {false};
+        ir.transform((child) -> {
+            recurs[0] = recurs[0] || child instanceof IR.Recur;
+            return child;
+        });
+        return recurs[0];
+    }
+
+    /**
+     * The inlined `call` of `var` with `args` (already analyzed in the caller), if the root of `var` has an inlinable
+     * method for them. `newSlot` adds a slot to the caller frame.
+     */
+    public static Optional<IR> inline(final Var var, final IR[] args, final IR.Call call,
+                                      final Supplier<FrameSlot> newSlot
+    ) {
+        if (Intrinsics.isPure(var)) { return Optional.empty(); } // Would not be better than the intrinsic
+
+        // Get the assumption first so that the root cannot change after it without invalidating it:
+        final Assumption stableRoot = var.getStableRootAssumption();
+        final Object root = var.getRawRoot();
+        if (stableRoot.isValid() && root instanceof Closure) {
+            final MethodNode method = ((Closure) root).method(args.length);
+            if (method != null && method.getInlinable() != null) {
+                final IR.Method callee = method.getInlinable();
+                final IR body = new Substitution(callee, args, newSlot).apply(callee.body);
+                return Optional.of(new IR.Inlined(stableRoot, body, call));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /** Moves the callee locals into the caller frame and replaces the callee args with the caller ones. */
+    private static final class Substitution implements UnaryOperator<IR> {
+        private final Set<FrameSlot> calleeSlots;
+        private final IR[] args;
+        private final Supplier<FrameSlot> newSlot;
+        private final Map<FrameSlot, FrameSlot> slots = new HashMap<>();
+
+        Substitution(final IR.Method callee, final IR[] args, final Supplier<FrameSlot> newSlot) {
+            this.calleeSlots = new HashSet<>(callee.frameDescriptor.getSlots());
+            this.args = args;
+            this.newSlot = newSlot;
+        }
+
+        private FrameSlot slot(final FrameSlot calleeSlot) {
+            return calleeSlots.contains(calleeSlot) ? slots.computeIfAbsent(calleeSlot, (slot) -> newSlot.get())
+                    : calleeSlot;
+        }
+
+        @Override
+        public IR apply(final IR ir) {
+            if (ir instanceof IR.Fn) { // Only the closings are evaluated in the inlined frame:
+                final IR.Fn fn = (IR.Fn) ir;
+                final IR[] closings = new IR[fn.closings.length];
+                for (int i = 0; i < closings.length; ++i) {
+                    closings[i] = apply(fn.closings[i]);
+                }
+                return new IR.Fn(fn.methods, closings);
+            } else if (ir instanceof IR.LocalDef) {
+                final IR.LocalDef def = (IR.LocalDef) ir;
+                if (def.init instanceof IR.ArgUse && ((IR.ArgUse) def.init).index == 0) {
+                    return new IR.Const(null); // The self param, which is unused without clovers
+                } else {
+                    return new IR.LocalDef(slot(def.slot), apply(def.init));
+                }
+            } else if (ir instanceof IR.ArgUse) { // Only in the param definitions, once for each arg, in order
+                return args[((IR.ArgUse) ir).index - 1];
+            } else if (ir instanceof IR.LocalUse) {
+                return new IR.LocalUse(slot(((IR.LocalUse) ir).slot));
+            } else if (ir instanceof IR.Try) {
+                final IR.Try tryIR = (IR.Try) ir;
+                final IR.Catch[] catches = new IR.Catch[tryIR.catches.length];
+                for (int i = 0; i < catches.length; ++i) {
+                    final IR.Catch c = tryIR.catches[i];
+                    catches[i] = new IR.Catch(c.catcheeClass, slot(c.catcheeSlot), apply(c.body));
+                }
+                return new IR.Try(apply(tryIR.body), catches,
+                        (tryIR.finallyExpr != null) ? apply(tryIR.finallyExpr) : null);
+            } else {
+                return ir.mapChildren(this);
+            }
+        }
+    }
+}
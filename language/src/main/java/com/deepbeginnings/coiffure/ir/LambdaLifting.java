@@ -0,0 +1,136 @@
+package com.deepbeginnings.coiffure.ir;
+
+import com.oracle.truffle.api.frame.FrameSlot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces non-escaping local fns with direct calls, so that no closure gets allocated for them. For example in
+ *
+ *     (let* [k 3
+ *            scale (fn* ([x] (* x k)))]
+ *       (scale (scale 1)))
+ *
+ * `scale` is only ever called (with an arity it has), so the `fn*` is dropped and the calls become `IR.MethodCall`s of
+ * its method, with the clover `k` passed as an extra arg. The method body reads its clovers from those args instead of
+ * the (nonexistent) closure.
+ *
+ * The clovers are re-read at each call instead of when the fn would have been created. That is fine because a local
+ * can only be redefined by `recur`, which also leaves the scope of the fn.
+ *
+ * Fns with a variadic method are left alone since their rest arg would swallow the clovers.
+ */
+public final class LambdaLifting implements Pass {
+    @Override
+    public String name() { return "lambda-lifting"; }
+
+    @Override
+    public IR run(final IR ir) { return ir.transform(LambdaLifting::liftInDo); }
+
+    // Locals are only visible in the rest of the `do` that defines them, so that is where the uses have to be:
+    private static IR liftInDo(final IR ir) {
+        if (ir instanceof IR.Do) {
+            final IR[] stmts = ((IR.Do) ir).stmts;
+
+            final List<IR> newStmts = new ArrayList<>(Arrays.asList(stmts));
+            boolean changed = false;
+            for (int i = newStmts.size() - 2; i >= 0; --i) { // The last stmt has no scope to lift into
+                final IR stmt = newStmts.get(i);
+                if (stmt instanceof IR.LocalDef && ((IR.LocalDef) stmt).init instanceof IR.Fn) {
+                    final IR.LocalDef def = (IR.LocalDef) stmt;
+                    final IR.Fn fn = (IR.Fn) def.init;
+                    final List<IR> scope = newStmts.subList(i + 1, newStmts.size());
+
+                    if (isLiftable(fn) && !escapes(def.slot, fn, scope)) {
+                        final Map<Integer, IR.Method> liftedMethods = new HashMap<>();
+                        for (final IR.Method method : fn.methods) {
+                            liftedMethods.put(method.minArity, lift(method));
+                        }
+
+                        for (int j = 0; j < scope.size(); ++j) {
+                            scope.set(j, scope.get(j).transform((child) -> {
+                                if (isCallOf(def.slot, child)) {
+                                    final IR[] args = ((IR.Call) child).args;
+                                    final IR[] liftedArgs = Arrays.copyOf(args, args.length + fn.closings.length);
+                                    System.arraycopy(fn.closings, 0, liftedArgs, args.length, fn.closings.length);
+                                    return new IR.MethodCall(liftedMethods.get(args.length), liftedArgs);
+                                } else {
+                                    return child;
+                                }
+                            }));
+                        }
+                        newStmts.remove(i);
+                        changed = true;
+                    }
+                }
+            }
+
+            if (changed) { return new IR.Do(newStmts.toArray(new IR[0])); }
+        }
+
+        return ir;
+    }
+
+    private static boolean isLiftable(final IR.Fn fn) {
+        for (final IR.Method method : fn.methods) {
+            if (method.isVariadic) { return false; }
+        }
+        return true;
+    }
+
+    /** Is `slot` (which holds `fn`) used in `scope` other than as the callee of calls that `fn` has an arity for? */
+    private static boolean escapes(final FrameSlot slot, final IR.Fn fn, final List<IR> scope) {
+        final int[] useCount = {0};
+        final int[] callCount = {0};
+        final boolean[] redefined = {false};
+
+        for (final IR stmt : scope) {
+            stmt.transform((child) -> {
+                if (child instanceof IR.LocalUse && ((IR.LocalUse) child).slot == slot) {
+                    ++useCount[0];
+                } else if (isCallOf(slot, child) && hasArity(fn, ((IR.Call) child).args.length)) {
+                    ++callCount[0];
+                } else if (child instanceof IR.LocalDef && ((IR.LocalDef) child).slot == slot) {
+                    redefined[0] = true; // by `recur`
+                }
+                return child;
+            });
+        }
+
+        return redefined[0] || useCount[0] != callCount[0];
+    }
+
+    private static boolean isCallOf(final FrameSlot slot, final IR ir) {
+        if (ir instanceof IR.Call) {
+            final IR callee = ((IR.Call) ir).callee;
+            return callee instanceof IR.LocalUse && ((IR.LocalUse) callee).slot == slot;
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean hasArity(final IR.Fn fn, final int argc) {
+        for (final IR.Method method : fn.methods) {
+            if (method.minArity == argc) { return true; }
+        }
+        return false;
+    }
+
+    private static IR.Method lift(final IR.Method method) {
+        // The self param (which `Analyzer` names by its index 0) will be `null`, so clovers come after the actual args:
+        final FrameSlot self = method.frameDescriptor.findFrameSlot(0);
+        final int cloversStart = 1 + method.minArity;
+
+        return method.withBody(method.body.transform((ir) -> {
+            if (ir instanceof IR.CloverUse && ((IR.CloverUse) ir).self == self) {
+                return new IR.ArgUse(cloversStart + ((IR.CloverUse) ir).index, false);
+            } else {
+                return ir;
+            }
+        }));
+    }
+}
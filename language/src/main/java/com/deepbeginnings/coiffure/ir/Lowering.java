@@ -0,0 +1,221 @@
+package com.deepbeginnings.coiffure.ir;
+
+import clojure.lang.Keyword;
+
+import com.deepbeginnings.coiffure.Analyzer;
+import com.deepbeginnings.coiffure.Intrinsics;
+import com.deepbeginnings.coiffure.Language;
+import com.deepbeginnings.coiffure.nodes.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/** Builds the Truffle nodes for IR. Every `lower` call builds new nodes. */
+public final class Lowering implements IR.Visitor<Expr> {
+    // Map literals with at most this many entries (`PersistentArrayMap.HASHTABLE_THRESHOLD / 2`) are array maps:
+    private static final int ARRAY_MAP_MAX_COUNT = 8;
+
+    // Lifted methods (see `LambdaLifting`) are shared by their call sites so that they only get one call target:
+    private final Map<IR.Method, MethodNode> liftedMethods = new IdentityHashMap<>();
+
+    private Lowering() {}
+
+    public static MethodNode lower(final IR.Method method) { return new Lowering().lowerMethod(method); }
+
+    private MethodNode lowerMethod(final IR.Method method) { return lowerMethod(method, false); }
+
+    private MethodNode lowerMethod(final IR.Method method, final boolean mayInline) {
+        final Expr body = lower(method.body);
+        if (method.section != null) { body.markRootBody(method.section); }
+        return new MethodNode(Language.getCurrentLanguage(), method.frameDescriptor, method.minArity,
+                method.isVariadic, body, (mayInline && Inlining.isInlinable(method)) ? method : null, method.name,
+                method.section);
+    }
+
+    private Expr lower(final IR ir) {
+        final Expr expr = ir.accept(this);
+        if (ir.section() != null) { expr.setSourceSection(ir.section()); }
+        return expr;
+    }
+
+    private Expr[] lowerAll(final IR[] irs) {
+        final Expr[] exprs = new Expr[irs.length];
+        for (int i = 0; i < irs.length; ++i) {
+            exprs[i] = lower(irs[i]);
+        }
+        return exprs;
+    }
+
+    // # Leaves
+
+    @Override
+    public Expr visit(final IR.Const ir) { return new Const(ir.value); }
+
+    @Override
+    public Expr visit(final IR.LocalUse ir) { return LocalUseNodeGen.create(ir.slot); }
+
+    @Override
+    public Expr visit(final IR.ArgUse ir) { return ir.isRest ? new RestArgUse(ir.index) : new ArgUse(ir.index); }
+
+    @Override
+    public Expr visit(final IR.CloverUse ir) { return CloverUseNodeGen.create(ir.self, ir.index); }
+
+    @Override
+    public Expr visit(final IR.GlobalUse ir) { return GlobalUseNodeGen.create(ir.var); }
+
+    @Override
+    public Expr visit(final IR.GetStatic ir) { return GetStatic.create(ir.field); }
+
+    // # Definitions and assignments
+
+    @Override
+    public Expr visit(final IR.LocalDef ir) { return LocalDefNodeGen.create(lower(ir.init), ir.slot); }
+
+    @Override
+    public Expr visit(final IR.GlobalDef ir) {
+        return GlobalDef.create(ir.var, lower(ir.init), (ir.meta != null) ? lower(ir.meta) : null);
+    }
+
+    @Override
+    public Expr visit(final IR.GlobalSet ir) { return new GlobalSet(ir.var, lower(ir.init)); }
+
+    // # Control
+
+    @Override
+    public Expr visit(final IR.Do ir) {
+        final Expr[] stmts = lowerAll(ir.stmts);
+        for (final Expr stmt : stmts) {
+            stmt.markStatement();
+        }
+        return Do.create(stmts);
+    }
+
+    @Override
+    public Expr visit(final IR.If ir) { return new If(lower(ir.cond), lower(ir.conseq), lower(ir.alt)); }
+
+    @Override
+    public Expr visit(final IR.Loop ir) { return new Loop(lower(ir.body)); }
+
+    @Override
+    public Expr visit(final IR.Recur ir) { return new Recur(lowerAll(ir.argDefs)); }
+
+    @Override
+    public Expr visit(final IR.Throw ir) { return new ThrowNode(lower(ir.exn)); }
+
+    @Override
+    public Expr visit(final IR.Try ir) {
+        final CatchNode[] catches = new CatchNode[ir.catches.length];
+        for (int i = 0; i < catches.length; ++i) {
+            final IR.Catch c = ir.catches[i];
+            catches[i] = new CatchNode(c.catcheeClass, c.catcheeSlot, lower(c.body));
+        }
+
+        return TryNode.create(lower(ir.body), catches, (ir.finallyExpr != null) ? lower(ir.finallyExpr) : null);
+    }
+
+    @Override
+    public Expr visit(final IR.Locking ir) { return new LockingNode(lower(ir.lock), lower(ir.body)); }
+
+    // # Fns
+
+    @Override
+    public Expr visit(final IR.Fn ir) {
+        final MethodNode[] methods = new MethodNode[Analyzer.MAX_POSITIONAL_ARITY + 1];
+        MethodNode variadicMethod = null;
+
+        for (final IR.Method method : ir.methods) {
+            // Inlining a method with clovers would need the closure:
+            final MethodNode methodNode = lowerMethod(method, ir.closings.length == 0);
+            if (method.isVariadic) {
+                variadicMethod = methodNode;
+            } else {
+                methods[method.minArity] = methodNode;
+            }
+        }
+
+        // The variadic method handles the arities from its required arity up, except for a fixed arity method with
+        // exactly that many params (`Analyzer` has rejected any others):
+        if (variadicMethod != null) {
+            for (int arity = variadicMethod.getMinArity(); arity < methods.length; ++arity) {
+                if (methods[arity] == null) { methods[arity] = variadicMethod; }
+            }
+        }
+
+        return new ClosureNode(methods, variadicMethod, lowerAll(ir.closings));
+    }
+
+    @Override
+    public Expr visit(final IR.Deferred ir) {
+        return new DeferredBody(() -> new Lowering().lower(ir.analyze.get().body));
+    }
+
+    @Override
+    public Expr visit(final IR.Call ir) {
+        if (ir.callee instanceof IR.Const && ((IR.Const) ir.callee).value instanceof Keyword
+                && (ir.args.length == 1 || ir.args.length == 2)
+        ) {
+            return KeywordLookup.create((Keyword) ((IR.Const) ir.callee).value, lower(ir.args[0]),
+                    (ir.args.length == 2) ? lower(ir.args[1]) : new Const(null));
+        } else if (ir.callee instanceof IR.GlobalUse) {
+            final Optional<Expr> intrinsic = Intrinsics.create(((IR.GlobalUse) ir.callee).var, lowerAll(ir.args));
+            if (intrinsic.isPresent()) { return intrinsic.get(); }
+        }
+
+        return CallNode.create(lower(ir.callee), lowerAll(ir.args));
+    }
+
+    @Override
+    public Expr visit(final IR.MethodCall ir) {
+        MethodNode method = liftedMethods.get(ir.method);
+        if (method == null) {
+            method = lowerMethod(ir.method);
+            liftedMethods.put(ir.method, method);
+        }
+        return new MethodCall(method, lowerAll(ir.args));
+    }
+
+    @Override
+    public Expr visit(final IR.Inlined ir) { return new InlinedCall(ir.stableRoot, lower(ir.body), lower(ir.call)); }
+
+    @Override
+    public Expr visit(final IR.PrimitiveCast ir) {
+        return (ir.type == long.class) ? LongCast.create(lower(ir.expr)) : DoubleCast.create(lower(ir.expr));
+    }
+
+    // # Interop
+
+    @Override
+    public Expr visit(final IR.New ir) { return New.create(ir.klass, lowerAll(ir.args), ir.constructor); }
+
+    @Override
+    public Expr visit(final IR.InvokeInstance ir) {
+        return InvokeInstance.create(lower(ir.receiver), ir.methodName, lowerAll(ir.args), ir.method);
+    }
+
+    @Override
+    public Expr visit(final IR.InvokeStatic ir) {
+        return InvokeStatic.create(ir.klass, ir.methodName, lowerAll(ir.args), ir.method);
+    }
+
+    // # Collections
+
+    @Override
+    public Expr visit(final IR.Vector ir) { return new VectorNode(lowerAll(ir.elems)); }
+
+    @Override
+    public Expr visit(final IR.Map ir) {
+        final Optional<Object[]> uniqueKeys = ir.uniqueConstKeys();
+
+        if (uniqueKeys.isPresent()) {
+            final Object[] keys = uniqueKeys.get();
+            final Expr[] vals = new Expr[keys.length];
+            for (int i = 0; i < vals.length; ++i) {
+                vals[i] = lower(ir.kvs[2 * i + 1]);
+            }
+            return (keys.length <= ARRAY_MAP_MAX_COUNT) ? new ArrayMapNode(keys, vals) : new HashMapNode(keys, vals);
+        } else {
+            return new MapNode(lowerAll(ir.kvs));
+        }
+    }
+}
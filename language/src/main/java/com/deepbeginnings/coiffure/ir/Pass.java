@@ -0,0 +1,9 @@
+package com.deepbeginnings.coiffure.ir;
+
+/** An IR-to-IR transformation, run by `Passes`. */
+public interface Pass {
+    /** The name used in `Passes` timing reports. */
+    String name();
+
+    IR run(IR ir);
+}
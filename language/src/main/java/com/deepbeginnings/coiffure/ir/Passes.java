@@ -0,0 +1,54 @@
+package com.deepbeginnings.coiffure.ir;
+
+import com.deepbeginnings.coiffure.Language;
+import com.oracle.truffle.api.TruffleLogger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * A pipeline of `Pass`es, run on each toplevel method before it is lowered to Truffle nodes.
+ *
+ * The time taken by each pass (and the IR size before and after it) is logged at level `FINE`, e.g. with
+ * `--log.coiffure.com.deepbeginnings.coiffure.ir.Passes.level=FINE`.
+ */
+public final class Passes {
+    private static final TruffleLogger LOGGER = TruffleLogger.getLogger(Language.ID, Passes.class);
+
+    public static final Passes DEFAULT = new Passes(Arrays.asList(
+            new ConstantFolding(),
+            new IfPruning(),
+            new Flattening(),
+            new DeadCodeElimination(),
+            new LambdaLifting()
+    ));
+
+    private final List<Pass> passes;
+
+    public Passes(final List<Pass> passes) { this.passes = Collections.unmodifiableList(passes); }
+
+    public List<Pass> passes() { return passes; }
+
+    public IR.Method run(final IR.Method method) { return method.withBody(run(method.body)); }
+
+    public IR run(IR ir) {
+        final boolean timed = LOGGER.isLoggable(Level.FINE);
+
+        for (final Pass pass : passes) {
+            if (timed) {
+                final int sizeBefore = ir.size();
+                final long start = System.nanoTime();
+                ir = pass.run(ir);
+                final long elapsed = System.nanoTime() - start;
+                LOGGER.fine(String.format("%s: %.3f ms, %d -> %d IR nodes", pass.name(), elapsed / 1e6, sizeBefore,
+                        ir.size()));
+            } else {
+                ir = pass.run(ir);
+            }
+        }
+
+        return ir;
+    }
+}
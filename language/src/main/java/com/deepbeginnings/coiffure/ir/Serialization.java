@@ -0,0 +1,876 @@
+package com.deepbeginnings.coiffure.ir;
+
+import clojure.lang.*;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A compact binary format for analyzed (and optimized) toplevel methods, for caching them between runs.
+ *
+ * Frame slots are written as their identifiers and read back from the descriptor of the enclosing method, vars as their
+ * qualified names, classes and reflective members as their names (and parameter types) and constants as a tagged
+ * encoding of the usual reader values. Anything else (e.g. a constant that folding produced) makes `write` throw a
+ * `NotSerializableException`. `IR.Inlined` is written as just its call since its assumption cannot be restored.
+ *
+ * Methods shared between several `MethodCall`s (see `LambdaLifting`) stay shared, which `Lowering` relies on.
+ */
+public final class Serialization {
+    private Serialization() { throw new AssertionError(); } // "module" class; only static members
+
+    public static void write(final DataOutputStream out, final Source source, final IR.Method method)
+            throws IOException {
+        new Writer(out, source).writeMethod(method);
+    }
+
+    /** Vars of `IR.GlobalDef`s are interned, other vars must already exist (else a `StreamCorruptedException`). */
+    public static IR.Method read(final DataInputStream in, final Source source) throws IOException {
+        return new Reader(in, source).readMethod();
+    }
+
+    // # Tags
+
+    private static final byte CONST = 0;
+    private static final byte LOCAL_USE = 1;
+    private static final byte ARG_USE = 2;
+    private static final byte CLOVER_USE = 3;
+    private static final byte GLOBAL_USE = 4;
+    private static final byte GET_STATIC = 5;
+    private static final byte LOCAL_DEF = 6;
+    private static final byte GLOBAL_DEF = 7;
+    private static final byte GLOBAL_SET = 8;
+    private static final byte DO = 9;
+    private static final byte IF = 10;
+    private static final byte LOOP = 11;
+    private static final byte RECUR = 12;
+    private static final byte THROW = 13;
+    private static final byte TRY = 14;
+    private static final byte LOCKING = 15;
+    private static final byte FN = 16;
+    private static final byte CALL = 17;
+    private static final byte METHOD_CALL = 18;
+    private static final byte PRIMITIVE_CAST = 19;
+    private static final byte NEW = 20;
+    private static final byte INVOKE_INSTANCE = 21;
+    private static final byte INVOKE_STATIC = 22;
+    private static final byte VECTOR = 23;
+    private static final byte MAP = 24;
+
+    private static final byte NIL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte CHARACTER = 6;
+    private static final byte KEYWORD = 7;
+    private static final byte SYMBOL = 8;
+    private static final byte LIST = 9;
+    private static final byte VECTOR_VALUE = 10;
+    private static final byte MAP_VALUE = 11;
+    private static final byte SET_VALUE = 12;
+    private static final byte VAR = 13;
+    private static final byte CLASS = 14;
+    private static final byte NAMESPACE = 15;
+
+    // # Writing
+
+    private static final class Writer implements IR.Visitor<Void> {
+        private final DataOutputStream out;
+        private final Source source;
+        private final IdentityHashMap<IR.Method, Integer> methodIndices = new IdentityHashMap<>();
+
+        Writer(final DataOutputStream out, final Source source) {
+            this.out = out;
+            this.source = source;
+        }
+
+        // Visitor methods cannot throw checked exceptions, so `IOException`s are tunneled through this:
+        private static final class Failure extends RuntimeException {
+            final IOException exn;
+
+            Failure(final IOException exn) {
+                super(exn);
+                this.exn = exn;
+            }
+        }
+
+        void writeMethod(final IR.Method method) throws IOException {
+            try {
+                method(method);
+            } catch (final Failure failure) {
+                throw failure.exn;
+            }
+        }
+
+        private void method(final IR.Method method) {
+            final Integer index = methodIndices.get(method);
+            if (index != null) {
+                int_(index);
+                return;
+            }
+            int_(-1);
+            methodIndices.put(method, methodIndices.size());
+
+            final List<? extends FrameSlot> slots = method.frameDescriptor.getSlots();
+            int_(slots.size());
+            for (final FrameSlot slot : slots) {
+                slot(slot);
+                byte_(method.frameDescriptor.getFrameSlotKind(slot).tag);
+            }
+            int_(method.minArity);
+            bool(method.isVariadic);
+            string(method.name);
+            section(method.section);
+            ir(method.body);
+        }
+
+        private void ir(final IR ir) {
+            if (ir instanceof IR.Inlined) { // The stable root assumption does not survive a restart
+                ir(((IR.Inlined) ir).call);
+            } else {
+                ir.accept(this);
+                section(ir.section());
+            }
+        }
+
+        private void irs(final IR[] irs) {
+            int_(irs.length);
+            for (final IR ir : irs) { ir(ir); }
+        }
+
+        private void optionalIR(final IR ir) {
+            bool(ir != null);
+            if (ir != null) { ir(ir); }
+        }
+
+        // ## Leaves
+
+        @Override
+        public Void visit(final IR.Const ir) {
+            byte_(CONST);
+            value(ir.value);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.LocalUse ir) {
+            byte_(LOCAL_USE);
+            slot(ir.slot);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.ArgUse ir) {
+            byte_(ARG_USE);
+            int_(ir.index);
+            bool(ir.isRest);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.CloverUse ir) {
+            byte_(CLOVER_USE);
+            slot(ir.self);
+            int_(ir.index);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.GlobalUse ir) {
+            byte_(GLOBAL_USE);
+            var(ir.var);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.GetStatic ir) {
+            byte_(GET_STATIC);
+            klass(ir.field.getDeclaringClass());
+            string(ir.field.getName());
+            return null;
+        }
+
+        // ## Definitions and assignments
+
+        @Override
+        public Void visit(final IR.LocalDef ir) {
+            byte_(LOCAL_DEF);
+            slot(ir.slot);
+            ir(ir.init);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.GlobalDef ir) {
+            byte_(GLOBAL_DEF);
+            var(ir.var);
+            ir(ir.init);
+            optionalIR(ir.meta);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.GlobalSet ir) {
+            byte_(GLOBAL_SET);
+            var(ir.var);
+            ir(ir.init);
+            return null;
+        }
+
+        // ## Control
+
+        @Override
+        public Void visit(final IR.Do ir) {
+            byte_(DO);
+            irs(ir.stmts);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.If ir) {
+            byte_(IF);
+            ir(ir.cond);
+            ir(ir.conseq);
+            ir(ir.alt);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Loop ir) {
+            byte_(LOOP);
+            ir(ir.body);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Recur ir) {
+            byte_(RECUR);
+            irs(ir.argDefs);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Throw ir) {
+            byte_(THROW);
+            ir(ir.exn);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Try ir) {
+            byte_(TRY);
+            ir(ir.body);
+            int_(ir.catches.length);
+            for (final IR.Catch c : ir.catches) {
+                klass(c.catcheeClass);
+                slot(c.catcheeSlot);
+                ir(c.body);
+            }
+            optionalIR(ir.finallyExpr);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Locking ir) {
+            byte_(LOCKING);
+            ir(ir.lock);
+            ir(ir.body);
+            return null;
+        }
+
+        // ## Fns and calls
+
+        @Override
+        public Void visit(final IR.Fn ir) {
+            byte_(FN);
+            int_(ir.methods.length);
+            for (final IR.Method method : ir.methods) { method(method); }
+            irs(ir.closings);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Deferred ir) {
+            throw new Failure(new NotSerializableException("unanalyzed fn method"));
+        }
+
+        @Override
+        public Void visit(final IR.Call ir) {
+            byte_(CALL);
+            ir(ir.callee);
+            irs(ir.args);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.MethodCall ir) {
+            byte_(METHOD_CALL);
+            method(ir.method);
+            irs(ir.args);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Inlined ir) { throw new AssertionError("unreachable"); } // see `ir`
+
+        @Override
+        public Void visit(final IR.PrimitiveCast ir) {
+            byte_(PRIMITIVE_CAST);
+            klass(ir.type);
+            ir(ir.expr);
+            return null;
+        }
+
+        // ## Interop
+
+        @Override
+        public Void visit(final IR.New ir) {
+            byte_(NEW);
+            klass(ir.klass);
+            irs(ir.args);
+            bool(ir.constructor != null);
+            if (ir.constructor != null) { classes(ir.constructor.getParameterTypes()); }
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.InvokeInstance ir) {
+            byte_(INVOKE_INSTANCE);
+            ir(ir.receiver);
+            string(ir.methodName);
+            irs(ir.args);
+            reflectedMethod(ir.method);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.InvokeStatic ir) {
+            byte_(INVOKE_STATIC);
+            klass(ir.klass);
+            string(ir.methodName);
+            irs(ir.args);
+            reflectedMethod(ir.method);
+            return null;
+        }
+
+        private void reflectedMethod(final java.lang.reflect.Method method) {
+            bool(method != null);
+            if (method != null) {
+                klass(method.getDeclaringClass());
+                classes(method.getParameterTypes());
+            }
+        }
+
+        // ## Collections
+
+        @Override
+        public Void visit(final IR.Vector ir) {
+            byte_(VECTOR);
+            irs(ir.elems);
+            return null;
+        }
+
+        @Override
+        public Void visit(final IR.Map ir) {
+            byte_(MAP);
+            irs(ir.kvs);
+            return null;
+        }
+
+        // ## Values
+
+        private void value(final Object value) {
+            if (value == null) {
+                byte_(NIL);
+            } else if (value instanceof Boolean) {
+                byte_((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Long) {
+                byte_(LONG);
+                long_((Long) value);
+            } else if (value instanceof Double) {
+                byte_(DOUBLE);
+                long_(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof String) {
+                byte_(STRING);
+                string((String) value);
+            } else if (value instanceof Character) {
+                byte_(CHARACTER);
+                int_((Character) value);
+            } else if (value instanceof Keyword) {
+                byte_(KEYWORD);
+                symbol(((Keyword) value).sym);
+            } else if (value instanceof Symbol) {
+                byte_(SYMBOL);
+                symbol((Symbol) value);
+                meta(value);
+            } else if (value instanceof IPersistentList) {
+                byte_(LIST);
+                values(RT.seq(value), ((IPersistentList) value).count());
+                meta(value);
+            } else if (value instanceof IPersistentVector) {
+                byte_(VECTOR_VALUE);
+                values(RT.seq(value), ((IPersistentVector) value).count());
+                meta(value);
+            } else if (value instanceof IPersistentMap) {
+                final IPersistentMap map = (IPersistentMap) value;
+                byte_(MAP_VALUE);
+                int_(map.count());
+                for (ISeq kvs = map.seq(); kvs != null; kvs = kvs.next()) {
+                    final IMapEntry kv = (IMapEntry) kvs.first();
+                    value(kv.key());
+                    value(kv.val());
+                }
+                meta(value);
+            } else if (value instanceof IPersistentSet) {
+                byte_(SET_VALUE);
+                values(RT.seq(value), ((IPersistentSet) value).count());
+                meta(value);
+            } else if (value instanceof Var) {
+                byte_(VAR);
+                var((Var) value);
+            } else if (value instanceof Class) {
+                byte_(CLASS);
+                klass((Class<?>) value);
+            } else if (value instanceof Namespace) {
+                byte_(NAMESPACE);
+                symbol(((Namespace) value).getName());
+            } else {
+                throw new Failure(new NotSerializableException(value.getClass().getName()));
+            }
+        }
+
+        private void values(ISeq values, final int count) {
+            int_(count);
+            for (; values != null; values = values.next()) { value(values.first()); }
+        }
+
+        private void meta(final Object value) { value(RT.meta(value)); }
+
+        // ## Primitives
+
+        private void slot(final FrameSlot slot) {
+            if (slot.getIdentifier() instanceof Integer) {
+                int_((Integer) slot.getIdentifier());
+            } else {
+                throw new Failure(new NotSerializableException("frame slot " + slot.getIdentifier()));
+            }
+        }
+
+        private void var(final Var var) {
+            symbol(var.ns.getName());
+            symbol(var.sym);
+        }
+
+        private void klass(final Class<?> klass) { string(klass.getName()); }
+
+        private void classes(final Class<?>[] classes) {
+            int_(classes.length);
+            for (final Class<?> klass : classes) { klass(klass); }
+        }
+
+        private void section(final SourceSection section) {
+            if (section != null && section.getSource() == source) {
+                int_(section.getCharIndex());
+                int_(section.getCharLength());
+            } else {
+                int_(-1);
+            }
+        }
+
+        private void symbol(final Symbol sym) {
+            string(sym.getNamespace());
+            string(sym.getName());
+        }
+
+        private void string(final String s) {
+            try {
+                out.writeBoolean(s != null);
+                if (s != null) { out.writeUTF(s); }
+            } catch (final IOException exn) {
+                throw new Failure(exn);
+            }
+        }
+
+        private void bool(final boolean b) {
+            try {
+                out.writeBoolean(b);
+            } catch (final IOException exn) {
+                throw new Failure(exn);
+            }
+        }
+
+        private void byte_(final int b) {
+            try {
+                out.writeByte(b);
+            } catch (final IOException exn) {
+                throw new Failure(exn);
+            }
+        }
+
+        // Variable-length (zigzag so that -1 stays short) since most ints here are small:
+        private void int_(final int n) { long_(n); }
+
+        private void long_(final long n) {
+            try {
+                long zigzag = (n << 1) ^ (n >> 63);
+                while ((zigzag & ~0x7FL) != 0) {
+                    out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+                    zigzag >>>= 7;
+                }
+                out.writeByte((int) zigzag);
+            } catch (final IOException exn) {
+                throw new Failure(exn);
+            }
+        }
+    }
+
+    // # Reading
+
+    private static final class Reader {
+        private final DataInputStream in;
+        private final Source source;
+        private final List<IR.Method> methods = new ArrayList<>();
+        private final Deque<FrameDescriptor> frames = new ArrayDeque<>();
+
+        Reader(final DataInputStream in, final Source source) {
+            this.in = in;
+            this.source = source;
+        }
+
+        IR.Method readMethod() throws IOException {
+            final int index = int_();
+            if (index >= 0) {
+                if (index < methods.size()) {
+                    return methods.get(index);
+                } else {
+                    throw new StreamCorruptedException("method index " + index);
+                }
+            }
+
+            final FrameDescriptor frameDescriptor = new FrameDescriptor();
+            final int slotCount = int_();
+            for (int i = 0; i < slotCount; ++i) {
+                final int identifier = int_();
+                frameDescriptor.addFrameSlot(identifier, frameSlotKind(in.readByte()));
+            }
+            final int minArity = int_();
+            final boolean isVariadic = in.readBoolean();
+            final String name = string();
+            final SourceSection section = section();
+
+            // Register it before the body so that recursive references find it:
+            final int methodIndex = methods.size();
+            methods.add(null);
+            frames.push(frameDescriptor);
+            final IR body;
+            try {
+                body = ir();
+            } finally {
+                frames.pop();
+            }
+
+            final IR.Method method = new IR.Method(frameDescriptor, minArity, isVariadic, body, name, section);
+            methods.set(methodIndex, method);
+            return method;
+        }
+
+        private static FrameSlotKind frameSlotKind(final byte tag) throws IOException {
+            for (final FrameSlotKind kind : FrameSlotKind.values()) {
+                if (kind.tag == tag) { return kind; }
+            }
+            throw new StreamCorruptedException("frame slot kind " + tag);
+        }
+
+        private IR ir() throws IOException {
+            final IR ir = irWithoutSection();
+            final SourceSection section = section();
+            return (section != null) ? ir.at(section) : ir;
+        }
+
+        private IR irWithoutSection() throws IOException {
+            final byte tag = in.readByte();
+            switch (tag) {
+            case CONST: return new IR.Const(value());
+            case LOCAL_USE: return new IR.LocalUse(slot());
+            case ARG_USE: {
+                final int index = int_();
+                return new IR.ArgUse(index, in.readBoolean());
+            }
+            case CLOVER_USE: {
+                final FrameSlot self = slot();
+                return new IR.CloverUse(self, int_());
+            }
+            case GLOBAL_USE: return new IR.GlobalUse(var(false));
+            case GET_STATIC: {
+                final Class<?> klass = klass();
+                try {
+                    return new IR.GetStatic(klass.getField(string()));
+                } catch (final NoSuchFieldException exn) {
+                    throw new StreamCorruptedException(exn.getMessage());
+                }
+            }
+
+            case LOCAL_DEF: {
+                final FrameSlot slot = slot();
+                return new IR.LocalDef(slot, ir());
+            }
+            case GLOBAL_DEF: {
+                final Var var = var(true);
+                final IR init = ir();
+                return new IR.GlobalDef(var, init, optionalIR());
+            }
+            case GLOBAL_SET: {
+                final Var var = var(false);
+                return new IR.GlobalSet(var, ir());
+            }
+
+            case DO: return new IR.Do(irs());
+            case IF: {
+                final IR cond = ir();
+                final IR conseq = ir();
+                return new IR.If(cond, conseq, ir());
+            }
+            case LOOP: return new IR.Loop(ir());
+            case RECUR: return new IR.Recur(irs());
+            case THROW: return new IR.Throw(ir());
+            case TRY: {
+                final IR body = ir();
+                final IR.Catch[] catches = new IR.Catch[int_()];
+                for (int i = 0; i < catches.length; ++i) {
+                    final Class<?> klass = klass();
+                    if (!Throwable.class.isAssignableFrom(klass)) {
+                        throw new StreamCorruptedException(klass + " is not a subclass of Throwable");
+                    }
+                    @SuppressWarnings("unchecked") // checked with `isAssignableFrom` directly above
+                    final Class<? extends Throwable> catcheeClass = (Class<? extends Throwable>) klass;
+                    final FrameSlot slot = slot();
+                    catches[i] = new IR.Catch(catcheeClass, slot, ir());
+                }
+                return new IR.Try(body, catches, optionalIR());
+            }
+            case LOCKING: {
+                final IR lock = ir();
+                return new IR.Locking(lock, ir());
+            }
+
+            case FN: {
+                final IR.Method[] methods = new IR.Method[int_()];
+                for (int i = 0; i < methods.length; ++i) { methods[i] = readMethod(); }
+                return new IR.Fn(methods, irs());
+            }
+            case CALL: {
+                final IR callee = ir();
+                return new IR.Call(callee, irs());
+            }
+            case METHOD_CALL: {
+                final IR.Method method = readMethod();
+                return new IR.MethodCall(method, irs());
+            }
+            case PRIMITIVE_CAST: {
+                final Class<?> type = klass();
+                return new IR.PrimitiveCast(type, ir());
+            }
+
+            case NEW: {
+                final Class<?> klass = klass();
+                final IR[] args = irs();
+                Constructor<?> constructor = null;
+                if (in.readBoolean()) {
+                    try {
+                        constructor = klass.getConstructor(classes());
+                    } catch (final NoSuchMethodException exn) {
+                        throw new StreamCorruptedException(exn.getMessage());
+                    }
+                }
+                return new IR.New(klass, args, constructor);
+            }
+            case INVOKE_INSTANCE: {
+                final IR receiver = ir();
+                final String methodName = string();
+                final IR[] args = irs();
+                return new IR.InvokeInstance(receiver, methodName, args, reflectedMethod(methodName));
+            }
+            case INVOKE_STATIC: {
+                final Class<?> klass = klass();
+                final String methodName = string();
+                final IR[] args = irs();
+                return new IR.InvokeStatic(klass, methodName, args, reflectedMethod(methodName));
+            }
+
+            case VECTOR: return new IR.Vector(irs());
+            case MAP: return new IR.Map(irs());
+
+            default: throw new StreamCorruptedException("IR tag " + tag);
+            }
+        }
+
+        private IR[] irs() throws IOException {
+            final IR[] irs = new IR[int_()];
+            for (int i = 0; i < irs.length; ++i) { irs[i] = ir(); }
+            return irs;
+        }
+
+        private IR optionalIR() throws IOException { return in.readBoolean() ? ir() : null; }
+
+        private java.lang.reflect.Method reflectedMethod(final String methodName) throws IOException {
+            if (in.readBoolean()) {
+                final Class<?> klass = klass();
+                try {
+                    return klass.getMethod(methodName, classes());
+                } catch (final NoSuchMethodException exn) {
+                    throw new StreamCorruptedException(exn.getMessage());
+                }
+            } else {
+                return null;
+            }
+        }
+
+        // ## Values
+
+        private Object value() throws IOException {
+            final byte tag = in.readByte();
+            switch (tag) {
+            case NIL: return null;
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            case LONG: return long_();
+            case DOUBLE: return Double.longBitsToDouble(long_());
+            case STRING: return string();
+            case CHARACTER: return (char) int_();
+            case KEYWORD: return Keyword.intern(symbol());
+            case SYMBOL: return withMeta(symbol());
+            case LIST: return withMeta(PersistentList.create(values()));
+            case VECTOR_VALUE: return withMeta(LazilyPersistentVector.createOwning(values().toArray()));
+            case MAP_VALUE: return withMeta(RT.map(values(2 * int_()).toArray()));
+            case SET_VALUE: return withMeta(PersistentHashSet.create(values()));
+            case VAR: return var(false);
+            case CLASS: return klass();
+            case NAMESPACE: return Namespace.findOrCreate(symbol());
+            default: throw new StreamCorruptedException("value tag " + tag);
+            }
+        }
+
+        private List<Object> values() throws IOException { return values(int_()); }
+
+        private List<Object> values(final int count) throws IOException {
+            final List<Object> values = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) { values.add(value()); }
+            return values;
+        }
+
+        private Object withMeta(final Object value) throws IOException {
+            final Object meta = value();
+            return (meta != null) ? ((IObj) value).withMeta((IPersistentMap) meta) : value;
+        }
+
+        // ## Primitives
+
+        private FrameSlot slot() throws IOException {
+            final int identifier = int_();
+            final FrameSlot slot = frames.isEmpty() ? null : frames.peek().findFrameSlot(identifier);
+            if (slot != null) {
+                return slot;
+            } else {
+                throw new StreamCorruptedException("frame slot " + identifier);
+            }
+        }
+
+        private Var var(final boolean intern) throws IOException {
+            final Symbol nsName = symbol();
+            final Symbol name = symbol();
+            if (intern) {
+                return Var.intern(Namespace.findOrCreate(nsName), name);
+            } else {
+                final Namespace ns = Namespace.find(nsName);
+                final Var var = (ns != null) ? ns.findInternedVar(name) : null;
+                if (var != null) {
+                    return var;
+                } else {
+                    throw new StreamCorruptedException("no var " + nsName + "/" + name);
+                }
+            }
+        }
+
+        private Class<?> klass() throws IOException {
+            final String name = string();
+            switch (name) {
+            case "long": return long.class;
+            case "double": return double.class;
+            case "int": return int.class;
+            case "boolean": return boolean.class;
+            case "char": return char.class;
+            case "byte": return byte.class;
+            case "short": return short.class;
+            case "float": return float.class;
+            case "void": return void.class;
+            default:
+                try {
+                    return RT.classForName(name);
+                } catch (final RuntimeException exn) {
+                    throw new StreamCorruptedException("no class " + name);
+                }
+            }
+        }
+
+        private Class<?>[] classes() throws IOException {
+            final Class<?>[] classes = new Class<?>[int_()];
+            for (int i = 0; i < classes.length; ++i) { classes[i] = klass(); }
+            return classes;
+        }
+
+        private SourceSection section() throws IOException {
+            final int charIndex = int_();
+            if (charIndex >= 0) {
+                final int charLength = int_();
+                try {
+                    return source.createSection(charIndex, charLength);
+                } catch (final IllegalArgumentException exn) {
+                    throw new StreamCorruptedException(exn.getMessage());
+                }
+            } else {
+                return null;
+            }
+        }
+
+        private Symbol symbol() throws IOException {
+            final String ns = string();
+            final String name = string();
+            if (name != null) {
+                return Symbol.intern(ns, name);
+            } else {
+                throw new StreamCorruptedException("symbol without name");
+            }
+        }
+
+        private String string() throws IOException { return in.readBoolean() ? in.readUTF() : null; }
+
+        private int int_() throws IOException { return (int) long_(); }
+
+        private long long_() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = in.readUnsignedByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) { return (zigzag >>> 1) ^ -(zigzag & 1); }
+            }
+            throw new StreamCorruptedException("varint too long");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `+` and (if promoting) `+'`:
+@NodeField(name = "promoting", type = boolean.class)
+public abstract class Add extends BinaryOp {
+    protected abstract boolean isPromoting();
+
+    public static Expr create(final boolean promoting, final Expr left, final Expr right) {
+        return AddNodeGen.create(left, right, promoting);
+    }
+
+    @Specialization(rewriteOn = ArithmeticException.class)
+    protected long addLongs(final long x, final long y) { return Math.addExact(x, y); }
+
+    @Specialization
+    protected double addDoubles(final double x, final double y) { return x + y; }
+
+    @Specialization
+    protected double addLongDouble(final long x, final double y) { return x + y; }
+
+    @Specialization
+    protected double addDoubleLong(final double x, final long y) { return x + y; }
+
+    // Also handles long overflow, by throwing or (if promoting) returning a BigInt:
+    @Specialization(replaces = "addLongs")
+    @TruffleBoundary
+    protected Number add(final Object x, final Object y) {
+        return isPromoting() ? Numbers.addP(x, y) : Numbers.add(x, y);
+    }
+}
@@ -0,0 +1,38 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import com.deepbeginnings.coiffure.Language;
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.instrumentation.AllocationReporter;
+
+// Reports the allocations of a node to `--memtracer` etc. The reporter is looked up from the current env on first use
+// and again whenever the env changes, since nodes of the native image's pre-initialized context were created (and
+// maybe run) with the build time env; otherwise the node only runs in one context since the context policy is
+// EXCLUSIVE:
+final class Allocations {
+    @CompilationFinal private AllocationReporter reporter = null;
+    @CompilationFinal private Assumption envUnchanged = null;
+
+    private AllocationReporter reporter() {
+        if (envUnchanged == null || !envUnchanged.isValid()) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            envUnchanged = Language.envUnchanged();
+            reporter = Language.allocationReporter();
+        }
+        return reporter;
+    }
+
+    /** Call before allocating. */
+    void enter() {
+        final AllocationReporter reporter = reporter();
+        if (reporter.isActive()) { reporter.onEnter(null, 0, AllocationReporter.SIZE_UNKNOWN); }
+    }
+
+    /** Call with the newly allocated `value` (after `enter`). */
+    <T> T allocated(final T value) {
+        final AllocationReporter reporter = reporter();
+        if (reporter.isActive()) { reporter.onReturnValue(value, 0, AllocationReporter.SIZE_UNKNOWN); }
+        return value;
+    }
+}
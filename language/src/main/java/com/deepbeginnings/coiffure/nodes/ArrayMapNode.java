@@ -0,0 +1,34 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.PersistentArrayMap;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
+// A small map literal with distinct constant keys: the key-value array is filled in directly and becomes the map's own
+// storage, so there is no duplicate key check or array-vs-hash decision at run time (cf. `RT.mapUniqueKeys`):
+public final class ArrayMapNode extends Expr {
+    @CompilationFinal(dimensions = 1) private final Object[] keys;
+    @Children private Expr[] vals;
+    private final Allocations allocations = new Allocations();
+
+    public ArrayMapNode(final Object[] keys, final Expr[] vals) {
+        assert keys.length == vals.length;
+        this.keys = keys;
+        this.vals = vals;
+    }
+
+    @ExplodeLoop
+    @Override
+    public Object execute(final VirtualFrame frame) {
+        final Object[] kvVals = new Object[2 * keys.length];
+
+        for (int i = 0; i < keys.length; ++i) {
+            kvVals[2 * i] = keys[i];
+            kvVals[2 * i + 1] = vals[i].execute(frame);
+        }
+
+        allocations.enter();
+        return allocations.allocated(new PersistentArrayMap(kvVals));
+    }
+}
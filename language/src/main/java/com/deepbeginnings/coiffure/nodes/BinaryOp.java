@@ -0,0 +1,7 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import com.oracle.truffle.api.dsl.NodeChild;
+
+@NodeChild(value = "left", type = Expr.class)
+@NodeChild(value = "right", type = Expr.class)
+public abstract class BinaryOp extends Expr {}
@@ -1,69 +1,138 @@
 package com.deepbeginnings.coiffure.nodes;
 
 import clojure.lang.IFn;
-import clojure.lang.Util;
 
 import com.deepbeginnings.coiffure.Analyzer;
+import com.deepbeginnings.coiffure.Closure;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.nodes.DirectCallNode;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.IndirectCallNode;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.Comparator;
-
-public final class CallNode extends Expr {
-    @Child private Expr callee;
-    @Children private Expr[] args;
-    private final Method ifnInvoke;
-    
-    private static final Method[] IFN_INVOKES = Arrays.stream(IFn.class.getMethods())
-            .filter(method -> method.getName().equals("invoke"))
-            .sorted(Comparator.comparing(Method::getParameterCount))
-            .toArray(Method[]::new);
-
-    public static Expr create(final Expr callee, final Expr[] args) { return new CallNode(callee, args); }
-
-    private CallNode(final Expr callee, final Expr[] args) {
-        this.callee = callee;
-        this.args = args;
-        this.ifnInvoke = IFN_INVOKES[Integer.min(args.length, Analyzer.MAX_POSITIONAL_ARITY + 1)];
+
+@NodeChild(value = "callee", type = Expr.class)
+public abstract class CallNode extends Expr {
+    @Children private final Expr[] args;
+
+    protected static final int INLINE_CACHE_SIZE = 3;
+
+    public static Expr create(final Expr callee, final Expr[] args) { return CallNodeGen.create(args, callee); }
+
+    protected CallNode(final Expr[] args) { this.args = args; }
+
+    protected final int argc() { return args.length; }
+
+    // # Closures: call the method target directly, just like `Closure.invoke` does.
+
+    @Specialization(guards = {"cachedMethod != null", "closure.method(argc()) == cachedMethod"},
+            limit = "INLINE_CACHE_SIZE")
+    protected Object callDirect(final VirtualFrame frame, final Closure closure,
+                                @Cached(value = "closure.method(argc())", adopt = false) final MethodNode cachedMethod,
+                                @Cached("create(cachedMethod.callTarget())") final DirectCallNode callNode
+    ) {
+        return callNode.call(executeMethodArgs(frame, closure));
     }
 
-    @ExplodeLoop
+    @Specialization(replaces = "callDirect")
+    protected Object callIndirect(final VirtualFrame frame, final Closure closure,
+                                  @Cached final IndirectCallNode callNode
+    ) {
+        final Object[] methodArgs = executeMethodArgs(frame, closure);
+        final MethodNode method = closure.method(argc());
+        return (method != null)
+                ? callNode.call(method.callTarget(), methodArgs)
+                : invoke(closure, Arrays.copyOfRange(methodArgs, 1, methodArgs.length)); // Throws `ArityException`
+    }
+
+    // # Other IFn:s (keywords, collections, `AFn` subclasses...)
+
+    @Specialization(guards = "!isClosure(fn)")
+    protected Object callFn(final VirtualFrame frame, final IFn fn) { return invoke(fn, executeArgs(frame)); }
+
+    @Fallback
+    protected Object callNonFn(final VirtualFrame frame, final Object callee) {
+        return invoke((IFn) callee, executeArgs(frame)); // Throws the appropriate `ClassCastException`
+    }
+
+    protected static boolean isClosure(final IFn fn) { return fn instanceof Closure; }
+
     @Override
-    public Object execute(final VirtualFrame frame) {
-        final IFn calleeVal = (IFn) callee.execute(frame);
-        final Object[] argVals;
-
-        if (args.length <= Analyzer.MAX_POSITIONAL_ARITY) {
-            argVals = new Object[args.length];
-
-            for (int i = 0; i < args.length; ++i) {
-                argVals[i] = args[i].execute(frame);
-            }
-        } else {
-            argVals = new Object[Analyzer.MAX_POSITIONAL_ARITY + 1];
-            final Object[] varArgs = new Object[args.length - Analyzer.MAX_POSITIONAL_ARITY];
-            int i = 0;
-
-            for (; i < Analyzer.MAX_POSITIONAL_ARITY; ++i) {
-                argVals[i] = args[i].execute(frame);
-            }
-
-            for (int j = 0; i < args.length; ++i, ++j) {
-                varArgs[j] = args[i].execute(frame);
-            }
-
-            argVals[Analyzer.MAX_POSITIONAL_ARITY] = varArgs;
+    public boolean hasTag(final Class<? extends Tag> tag) {
+        return tag == StandardTags.CallTag.class || super.hasTag(tag);
+    }
+
+    @ExplodeLoop
+    private Object[] executeArgs(final VirtualFrame frame) {
+        final Object[] argVals = new Object[args.length];
+
+        for (int i = 0; i < args.length; ++i) {
+            argVals[i] = args[i].execute(frame);
         }
 
-        try {
-            return ifnInvoke.invoke(calleeVal, argVals);
-        } catch (final InvocationTargetException exn) {
-            throw Util.sneakyThrow(exn.getCause());
-        } catch (final IllegalAccessException | IllegalArgumentException exn) {
-            throw Util.sneakyThrow(exn);
+        return argVals;
+    }
+
+    // The call target arguments `[closure, args...]` (also for variadic methods, see `RestArgUse`):
+    @ExplodeLoop
+    private Object[] executeMethodArgs(final VirtualFrame frame, final Closure closure) {
+        final Object[] methodArgs = new Object[args.length + 1];
+
+        methodArgs[0] = closure;
+        for (int i = 0; i < args.length; ++i) {
+            methodArgs[i + 1] = args[i].execute(frame);
+        }
+
+        return methodArgs;
+    }
+
+    @TruffleBoundary
+    private static Object invoke(final IFn fn, final Object[] args) {
+        switch (args.length) {
+        case 0: return fn.invoke();
+        case 1: return fn.invoke(args[0]);
+        case 2: return fn.invoke(args[0], args[1]);
+        case 3: return fn.invoke(args[0], args[1], args[2]);
+        case 4: return fn.invoke(args[0], args[1], args[2], args[3]);
+        case 5: return fn.invoke(args[0], args[1], args[2], args[3], args[4]);
+        case 6: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5]);
+        case 7: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6]);
+        case 8: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7]);
+        case 9: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8]);
+        case 10: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9]);
+        case 11: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10]);
+        case 12: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11]);
+        case 13: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12]);
+        case 14: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12], args[13]);
+        case 15: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12], args[13], args[14]);
+        case 16: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12], args[13], args[14], args[15]);
+        case 17: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12], args[13], args[14], args[15], args[16]);
+        case 18: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12], args[13], args[14], args[15], args[16], args[17]);
+        case 19: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12], args[13], args[14], args[15], args[16], args[17], args[18]);
+        case 20: return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8],
+                    args[9], args[10], args[11], args[12], args[13], args[14], args[15], args[16], args[17], args[18],
+                    args[19]);
+        default:
+            return fn.invoke(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7], args[8], args[9],
+                    args[10], args[11], args[12], args[13], args[14], args[15], args[16], args[17], args[18], args[19],
+                    Arrays.copyOfRange(args, Analyzer.MAX_POSITIONAL_ARITY, args.length));
         }
     }
 }
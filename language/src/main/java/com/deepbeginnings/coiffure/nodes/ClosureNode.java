@@ -1,32 +1,41 @@
 package com.deepbeginnings.coiffure.nodes;
 
 import com.deepbeginnings.coiffure.Closure;
-import com.deepbeginnings.coiffure.RestClosure;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.object.DynamicObjectLibrary;
 
 public final class ClosureNode extends Expr {
-    @Children private MethodNode[] methods;
+    // Not `@Children`: they are root nodes of their own (so e.g. profilers attribute their execution to them):
+    @CompilationFinal(dimensions = 1) private final MethodNode[] methods;
     private final MethodNode variadicMethod;
     @Children private Expr[] closings;
+    @Children private DynamicObjectLibrary[] cloverInits;
+    private final Allocations allocations = new Allocations();
+
+    private static final int CLOVER_CACHE_SIZE = 3;
 
     public ClosureNode(final MethodNode[] methods, final MethodNode variadicMethod, final Expr[] closings) {
         this.methods = methods;
         this.variadicMethod = variadicMethod;
         this.closings = closings;
+        this.cloverInits = new DynamicObjectLibrary[closings.length];
+        for (int i = 0; i < closings.length; ++i) {
+            cloverInits[i] = DynamicObjectLibrary.getFactory().createDispatched(CLOVER_CACHE_SIZE);
+        }
     }
 
     @ExplodeLoop
     @Override
     public Object execute(final VirtualFrame frame) {
-        final Object[] clovers = new Object[closings.length];
+        allocations.enter();
+        final Closure closure = allocations.allocated(new Closure(methods, variadicMethod));
 
         for (int i = 0; i < closings.length; ++i) {
-            clovers[i] = closings[i].execute(frame);
+            cloverInits[i].put(closure, i, closings[i].execute(frame));
         }
 
-        return (variadicMethod != null)
-                ? new RestClosure(methods, variadicMethod, clovers)
-                : new Closure(methods, clovers);
+        return closure;
     }
 }
@@ -1,11 +1,14 @@
 package com.deepbeginnings.coiffure.nodes;
 
-import com.deepbeginnings.coiffure.IClosure;
+import com.deepbeginnings.coiffure.Closure;
 import com.oracle.truffle.api.dsl.NodeField;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.FrameUtil;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.oracle.truffle.api.object.DynamicObjectLibrary;
 
 @NodeField(name = "slot", type = FrameSlot.class)
 @NodeField(name = "index", type = Integer.class)
@@ -14,8 +17,30 @@ public abstract class CloverUse extends Expr {
 
     protected abstract int getIndex();
 
-    @Specialization
-    protected Object readObject(final VirtualFrame frame) {
-        return ((IClosure) FrameUtil.getObjectSafe(frame, getSlot())).clover(getIndex());
+    protected static final int CLOVER_CACHE_SIZE = 3;
+
+    protected final Closure self(final VirtualFrame frame) {
+        return (Closure) FrameUtil.getObjectSafe(frame, getSlot());
+    }
+
+    @Specialization(rewriteOn = UnexpectedResultException.class)
+    protected long readLong(final VirtualFrame frame,
+                            @CachedLibrary(limit = "CLOVER_CACHE_SIZE") final DynamicObjectLibrary clovers
+    ) throws UnexpectedResultException {
+        return clovers.getLongOrDefault(self(frame), getIndex(), null);
+    }
+
+    @Specialization(rewriteOn = UnexpectedResultException.class)
+    protected double readDouble(final VirtualFrame frame,
+                                @CachedLibrary(limit = "CLOVER_CACHE_SIZE") final DynamicObjectLibrary clovers
+    ) throws UnexpectedResultException {
+        return clovers.getDoubleOrDefault(self(frame), getIndex(), null);
+    }
+
+    @Specialization(replaces = {"readLong", "readDouble"})
+    protected Object readObject(final VirtualFrame frame,
+                                @CachedLibrary(limit = "CLOVER_CACHE_SIZE") final DynamicObjectLibrary clovers
+    ) {
+        return clovers.getOrDefault(self(frame), getIndex(), null);
     }
 }
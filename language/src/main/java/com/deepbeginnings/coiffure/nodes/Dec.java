@@ -0,0 +1,27 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `dec` and (if promoting) `dec'`:
+@NodeField(name = "promoting", type = boolean.class)
+public abstract class Dec extends UnaryOp {
+    protected abstract boolean isPromoting();
+
+    public static Expr create(final boolean promoting, final Expr operand) {
+        return DecNodeGen.create(operand, promoting);
+    }
+
+    @Specialization(rewriteOn = ArithmeticException.class)
+    protected long decLong(final long x) { return Math.decrementExact(x); }
+
+    @Specialization
+    protected double decDouble(final double x) { return x - 1; }
+
+    // Also handles long overflow, by throwing or (if promoting) returning a BigInt:
+    @Specialization(replaces = "decLong")
+    @TruffleBoundary
+    protected Number dec(final Object x) { return isPromoting() ? Numbers.decP(x) : Numbers.dec(x); }
+}
@@ -0,0 +1,47 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+import java.util.function.Supplier;
+
+/**
+ * The body of a fn method that gets analyzed on its first call (see `IR.Deferred`), which then replaces this with the
+ * actual body. If analysis fails, its error is rethrown on every call (retrying could not succeed with the slots that
+ * the failed attempt already added to the frame descriptor).
+ */
+public final class DeferredBody extends Expr {
+    private final Supplier<Expr> analyze;
+    private Expr body = null;
+    private RuntimeException error = null;
+
+    public DeferredBody(final Supplier<Expr> analyze) { this.analyze = analyze; }
+
+    @Override
+    Object execute(final VirtualFrame frame) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        return body().execute(frame);
+    }
+
+    @TruffleBoundary
+    private synchronized Expr body() {
+        if (body == null) {
+            if (error != null) { throw error; }
+
+            final Expr body;
+            try {
+                body = analyze.get();
+            } catch (final RuntimeException exn) {
+                error = exn;
+                throw exn;
+            }
+            if (getSourceSection() != null) { body.markRootBody(getSourceSection()); }
+
+            // A concurrent call may still execute this after the replacement, hence the `body` field:
+            this.body = replace(body);
+            notifyInserted(this.body);
+        }
+        return body;
+    }
+}
@@ -18,7 +18,7 @@ public final class Do extends Expr implements BlockNode.ElementExecutor<Expr> {
 
     @Override
     public void executeVoid(final VirtualFrame frame, final Expr stmt, final int index, final int arg) {
-        stmt.execute(frame);
+        stmt.executeVoid(frame);
     }
 
     @Override
@@ -0,0 +1,20 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.RT;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// The coercion of a `^double` hinted local, param or return value, like `(double x)`:
+public abstract class DoubleCast extends UnaryOp {
+    public static Expr create(final Expr operand) { return DoubleCastNodeGen.create(operand); }
+
+    @Specialization
+    protected double castDouble(final double x) { return x; }
+
+    @Specialization
+    protected double castLong(final long x) { return x; }
+
+    @Specialization
+    @TruffleBoundary
+    protected double cast(final Object x) { return RT.doubleCast(x); }
+}
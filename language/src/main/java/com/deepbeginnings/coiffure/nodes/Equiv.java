@@ -0,0 +1,23 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Util;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `=`; unlike `==`, numbers of different categories are never equal (`(= 1 1.0)` is false):
+public abstract class Equiv extends BinaryOp {
+    public static Expr create(final Expr left, final Expr right) { return EquivNodeGen.create(left, right); }
+
+    @Specialization
+    protected boolean equivLongs(final long x, final long y) { return x == y; }
+
+    @Specialization
+    protected boolean equivDoubles(final double x, final double y) { return x == y; }
+
+    @Specialization
+    protected boolean equivBooleans(final boolean x, final boolean y) { return x == y; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean equiv(final Object x, final Object y) { return Util.equiv(x, y); }
+}
@@ -1,8 +1,75 @@
 package com.deepbeginnings.coiffure.nodes;
 
+import com.oracle.truffle.api.dsl.TypeSystemReference;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.GenerateWrapper;
+import com.oracle.truffle.api.instrumentation.InstrumentableNode;
+import com.oracle.truffle.api.instrumentation.ProbeNode;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
 import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * An expression. Those with a source section (the ones lowered from a list form) can be instrumented, so that tools
+ * like `--cpusampler` and `--coverage` can attribute their work to source lines.
+ */
+@TypeSystemReference(Types.class)
+@GenerateWrapper
+public abstract class Expr extends Node implements InstrumentableNode {
+    private SourceSection sourceSection; // nullable
+    private boolean isStatement;
+    private boolean isRootBody;
 
-public abstract class Expr extends Node {
     abstract Object execute(VirtualFrame frame);
+
+    /** Execute for effect only (e.g. as a non-final statement), so that primitive results need not be boxed. */
+    void executeVoid(final VirtualFrame frame) { execute(frame); }
+
+    // Unboxed variants for primitive specializations; overridden by nodes that can produce primitives directly:
+
+    long executeLong(final VirtualFrame frame) throws UnexpectedResultException {
+        return TypesGen.expectLong(execute(frame));
+    }
+
+    double executeDouble(final VirtualFrame frame) throws UnexpectedResultException {
+        return TypesGen.expectDouble(execute(frame));
+    }
+
+    boolean executeBoolean(final VirtualFrame frame) throws UnexpectedResultException {
+        return TypesGen.expectBoolean(execute(frame));
+    }
+
+    // # Instrumentation
+
+    @Override
+    public SourceSection getSourceSection() { return sourceSection; }
+
+    /** Set the source section unless this already has one (e.g. a `do` of one stmt lowers to the stmt node). */
+    public final void setSourceSection(final SourceSection sourceSection) {
+        if (this.sourceSection == null) { this.sourceSection = sourceSection; }
+    }
+
+    /** Tag this as a statement (of a `do`) for e.g. line breakpoints and statement coverage. */
+    public final void markStatement() { isStatement = true; }
+
+    /** Tag this as the body of the method `section`. */
+    public final void markRootBody(final SourceSection section) {
+        setSourceSection(section);
+        isRootBody = true;
+    }
+
+    @Override
+    public boolean isInstrumentable() { return sourceSection != null; }
+
+    @Override
+    public WrapperNode createWrapper(final ProbeNode probe) { return new ExprWrapper(this, probe); }
+
+    @Override
+    public boolean hasTag(final Class<? extends Tag> tag) {
+        return tag == StandardTags.ExpressionTag.class
+                || (tag == StandardTags.StatementTag.class && isStatement)
+                || ((tag == StandardTags.RootTag.class || tag == StandardTags.RootBodyTag.class) && isRootBody);
+    }
 }
@@ -1,27 +1,48 @@
 package com.deepbeginnings.coiffure.nodes;
 
-import clojure.lang.Reflector;
 import clojure.lang.Util;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.NodeField;
 import com.oracle.truffle.api.dsl.Specialization;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.util.Optional;
+import java.lang.reflect.Modifier;
 
 @NodeField(name = "field", type = Field.class)
 public abstract class GetStatic extends Expr {
     protected abstract Field getField();
 
-    public static Optional<GetStatic> create(final Class<?> klass, final String fieldName) {
-        final Field field = Reflector.getField(klass, fieldName, true);
-        return (field != null) ? Optional.of(GetStaticNodeGen.create(field)) : Optional.empty();
+    public static GetStatic create(final Field field) { return GetStaticNodeGen.create(field); }
+
+    protected final boolean isFinal() { return Modifier.isFinal(getField().getModifiers()); }
+
+    // A static final is read once (on first execution, so that analysis does not initialize the class) and is then
+    // a compilation constant:
+    @Specialization(guards = "isFinal()")
+    protected Object getFinal(@Cached("getStatic(getter())") final Object value) { return value; }
+
+    @Specialization(guards = "!isFinal()")
+    protected Object getNonFinal(@Cached("getter()") final MethodHandle getter) { return getStatic(getter); }
+
+    @TruffleBoundary
+    protected final MethodHandle getter() {
+        try {
+            return MethodHandles.publicLookup().unreflectGetter(getField())
+                    .asType(MethodType.methodType(Object.class));
+        } catch (final IllegalAccessException exn) {
+            throw Util.sneakyThrow(exn);
+        }
     }
 
-    @Specialization
-    protected Object getStatic() {
+    @TruffleBoundary
+    protected static Object getStatic(final MethodHandle getter) {
         try {
-            return getField().get(null); // OPTIMIZE
-        } catch (final IllegalAccessException | IllegalArgumentException exn) {
+            return (Object) getter.invokeExact();
+        } catch (final Throwable exn) {
             throw Util.sneakyThrow(exn);
         }
     }
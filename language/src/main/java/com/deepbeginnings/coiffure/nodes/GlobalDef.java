@@ -1,22 +1,28 @@
 package com.deepbeginnings.coiffure.nodes;
 
+import clojure.lang.IPersistentMap;
 import clojure.lang.Var;
 import com.oracle.truffle.api.frame.VirtualFrame;
 
 public final class GlobalDef extends Expr {
     private final Var var;
     @Child private Expr init;
+    @Child private Expr meta; // nullable
     
-    public static Expr create(final Var var, final Expr init) { return new GlobalDef(var, init); }
+    public static Expr create(final Var var, final Expr init, final Expr meta) {
+        return new GlobalDef(var, init, meta);
+    }
 
-    private GlobalDef(final Var var, final Expr init) {
+    private GlobalDef(final Var var, final Expr init, final Expr meta) {
         this.var = var;
         this.init = init;
+        this.meta = meta;
     }
 
     @Override
     public Object execute(final VirtualFrame frame) {
         var.bindRoot(init.execute(frame));
+        if (meta != null) { var.setMeta((IPersistentMap) meta.execute(frame)); }
         return var;
     }
 }
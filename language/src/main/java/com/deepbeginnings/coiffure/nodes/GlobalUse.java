@@ -2,6 +2,8 @@ package com.deepbeginnings.coiffure.nodes;
 
 import clojure.lang.Var;
 
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.NodeField;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -10,7 +12,16 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 public abstract class GlobalUse extends Expr {
     protected abstract Var getVar();
 
-    @Specialization
+    // The root of a non-dynamic Var is a compilation constant until the Var gets redefined (or made dynamic), which
+    // invalidates `stableRoot` and thus deoptimizes and respecializes this:
+    @Specialization(assumptions = "stableRoot")
+    protected Object readStableRoot(@Cached("getVar().getStableRootAssumption()") final Assumption stableRoot,
+                                    @Cached("getVar().getRawRoot()") final Object root
+    ) {
+        return root;
+    }
+
+    @Specialization(replaces = "readStableRoot")
     protected Object readObject(final VirtualFrame frame) {
         final Var var = getVar();
         return var.isDynamic() ? var.get() : var.getRawRoot();
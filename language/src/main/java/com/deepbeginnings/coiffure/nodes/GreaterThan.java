@@ -0,0 +1,26 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `>`:
+public abstract class GreaterThan extends BinaryOp {
+    public static Expr create(final Expr left, final Expr right) { return GreaterThanNodeGen.create(left, right); }
+
+    @Specialization
+    protected boolean greaterThanLongs(final long x, final long y) { return x > y; }
+
+    @Specialization
+    protected boolean greaterThanDoubles(final double x, final double y) { return x > y; }
+
+    @Specialization
+    protected boolean greaterThanLongDouble(final long x, final double y) { return x > y; }
+
+    @Specialization
+    protected boolean greaterThanDoubleLong(final double x, final long y) { return x > y; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean greaterThan(final Object x, final Object y) { return Numbers.gt(x, y); }
+}
@@ -0,0 +1,26 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `>=`:
+public abstract class GreaterThanOrEqual extends BinaryOp {
+    public static Expr create(final Expr left, final Expr right) { return GreaterThanOrEqualNodeGen.create(left, right); }
+
+    @Specialization
+    protected boolean greaterThanOrEqualLongs(final long x, final long y) { return x >= y; }
+
+    @Specialization
+    protected boolean greaterThanOrEqualDoubles(final double x, final double y) { return x >= y; }
+
+    @Specialization
+    protected boolean greaterThanOrEqualLongDouble(final long x, final double y) { return x >= y; }
+
+    @Specialization
+    protected boolean greaterThanOrEqualDoubleLong(final double x, final long y) { return x >= y; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean greaterThanOrEqual(final Object x, final Object y) { return Numbers.gte(x, y); }
+}
@@ -0,0 +1,49 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.ITransientMap;
+import clojure.lang.PersistentHashMap;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
+// A map literal with distinct constant keys that is too large for an array map: the entries are assoc'ed straight into
+// a transient hash map, without an intermediate key-value array or duplicate key check:
+public final class HashMapNode extends Expr {
+    @CompilationFinal(dimensions = 1) private final Object[] keys;
+    @Children private Expr[] vals;
+    private final Allocations allocations = new Allocations();
+
+    public HashMapNode(final Object[] keys, final Expr[] vals) {
+        assert keys.length == vals.length;
+        this.keys = keys;
+        this.vals = vals;
+    }
+
+    @ExplodeLoop
+    @Override
+    public Object execute(final VirtualFrame frame) {
+        final Object[] valVals = new Object[vals.length];
+        for (int i = 0; i < vals.length; ++i) {
+            valVals[i] = vals[i].execute(frame);
+        }
+
+        allocations.enter();
+        ITransientMap map = emptyTransient();
+        for (int i = 0; i < keys.length; ++i) {
+            map = assoc(map, keys[i], valVals[i]);
+        }
+        return allocations.allocated(persistent(map));
+    }
+
+    @TruffleBoundary
+    private static ITransientMap emptyTransient() { return PersistentHashMap.EMPTY.asTransient(); }
+
+    @TruffleBoundary
+    private static ITransientMap assoc(final ITransientMap map, final Object key, final Object val) {
+        return map.assoc(key, val);
+    }
+
+    @TruffleBoundary
+    private static Object persistent(final ITransientMap map) { return map.persistent(); }
+}
@@ -0,0 +1,27 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `inc` and (if promoting) `inc'`:
+@NodeField(name = "promoting", type = boolean.class)
+public abstract class Inc extends UnaryOp {
+    protected abstract boolean isPromoting();
+
+    public static Expr create(final boolean promoting, final Expr operand) {
+        return IncNodeGen.create(operand, promoting);
+    }
+
+    @Specialization(rewriteOn = ArithmeticException.class)
+    protected long incLong(final long x) { return Math.incrementExact(x); }
+
+    @Specialization
+    protected double incDouble(final double x) { return x + 1; }
+
+    // Also handles long overflow, by throwing or (if promoting) returning a BigInt:
+    @Specialization(replaces = "incLong")
+    @TruffleBoundary
+    protected Number inc(final Object x) { return isPromoting() ? Numbers.incP(x) : Numbers.inc(x); }
+}
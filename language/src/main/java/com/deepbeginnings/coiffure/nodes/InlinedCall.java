@@ -0,0 +1,28 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+// The inlined body of a global fn until the var gets redefined, after which this replaces itself with the plain call:
+public final class InlinedCall extends Expr {
+    private final Assumption stableRoot;
+    @Child private Expr body;
+    @Child private Expr call;
+
+    public InlinedCall(final Assumption stableRoot, final Expr body, final Expr call) {
+        this.stableRoot = stableRoot;
+        this.body = body;
+        this.call = call;
+    }
+
+    @Override
+    public Object execute(final VirtualFrame frame) {
+        if (stableRoot.isValid()) {
+            return body.execute(frame);
+        } else {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            return replace(call).execute(frame);
+        }
+    }
+}
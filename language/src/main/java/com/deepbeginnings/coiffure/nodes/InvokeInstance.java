@@ -1,22 +1,31 @@
 package com.deepbeginnings.coiffure.nodes;
 
 import clojure.lang.Reflector;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+
+import java.lang.reflect.Method;
 
 public final class InvokeInstance extends Expr {
     @Child private Expr receiver;
-    private final String methodName;
     @Children private Expr[] args;
+    @Child private Dispatch dispatch;
 
-    public static Expr create(final Expr receiver, final String methodName, final Expr[] args) {
-        return new InvokeInstance(receiver, methodName, args);
+    /** `method` is the one that `Analyzer` resolved from type hints or `null` to select it at run time. */
+    public static Expr create(final Expr receiver, final String methodName, final Expr[] args, final Method method) {
+        return new InvokeInstance(receiver, methodName, args, method);
     }
 
-    private InvokeInstance(final Expr receiver, final String methodName, final Expr[] args) {
+    private InvokeInstance(final Expr receiver, final String methodName, final Expr[] args, final Method method) {
         this.receiver = receiver;
-        this.methodName = methodName;
         this.args = args;
+        this.dispatch = (method != null) ? new ResolvedDispatch(method)
+                : InvokeInstanceFactory.CachedDispatchNodeGen.create(methodName);
     }
 
     @ExplodeLoop
@@ -29,6 +38,65 @@ public final class InvokeInstance extends Expr {
             argVals[i] = args[i].execute(frame);
         }
 
-        return Reflector.invokeInstanceMethod(recVal, methodName, argVals); // OPTIMIZE
+        return dispatch.execute(recVal, argVals);
+    }
+
+    static abstract class Dispatch extends Node {
+        abstract Object execute(Object receiver, Object[] args);
+    }
+
+    // The receiver is checked like a JVM `checkcast` of the hinted type (well, the class declaring the method):
+    private static final class ResolvedDispatch extends Dispatch {
+        private final Class<?> receiverClass;
+        private final ResolvedMethod method;
+
+        ResolvedDispatch(final Method method) {
+            this.receiverClass = method.getDeclaringClass();
+            this.method = ResolvedMethod.of(method);
+        }
+
+        @Override
+        Object execute(final Object receiver, final Object[] args) {
+            if (!receiverClass.isInstance(receiver)) {
+                CompilerDirectives.transferToInterpreter();
+                throw castError(receiver, receiverClass);
+            }
+
+            return method.invoke(receiver, args);
+        }
+
+        @TruffleBoundary
+        private static ClassCastException castError(final Object receiver, final Class<?> receiverClass) {
+            return new ClassCastException(((receiver != null) ? receiver.getClass().getName() : "nil")
+                    + " cannot be cast to " + receiverClass.getName());
+        }
+    }
+
+    // Inline cache of the methods selected for the receiver classes (and argument classes, if overloaded) seen so far:
+    static abstract class CachedDispatch extends Dispatch {
+        protected static final int INLINE_CACHE_SIZE = 3;
+
+        protected final String methodName;
+
+        protected CachedDispatch(final String methodName) { this.methodName = methodName; }
+
+        @Specialization(guards = {"receiver.getClass() == cachedClass", "method.matches(args)"},
+                limit = "INLINE_CACHE_SIZE")
+        protected Object invokeCached(final Object receiver, final Object[] args,
+                                      @Cached("receiver.getClass()") final Class<?> cachedClass,
+                                      @Cached("instance(receiver, methodName, args)") final ResolvedMethod method
+        ) {
+            return method.invoke(receiver, args);
+        }
+
+        @Specialization(replaces = "invokeCached")
+        @TruffleBoundary
+        protected Object invokeUncached(final Object receiver, final Object[] args) {
+            return Reflector.invokeInstanceMethod(receiver, methodName, args);
+        }
+
+        protected static ResolvedMethod instance(final Object receiver, final String methodName, final Object[] args) {
+            return ResolvedMethod.instance(receiver, methodName, args);
+        }
     }
 }
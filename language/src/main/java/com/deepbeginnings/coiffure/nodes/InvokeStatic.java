@@ -0,0 +1,81 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Reflector;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+
+import java.lang.reflect.Method;
+
+public final class InvokeStatic extends Expr {
+    @Children private Expr[] args;
+    @Child private Dispatch dispatch;
+
+    /** `method` is the one that `Analyzer` resolved from type hints or `null` to select it at run time. */
+    public static Expr create(final Class<?> klass, final String methodName, final Expr[] args, final Method method) {
+        return new InvokeStatic(klass, methodName, args, method);
+    }
+
+    private InvokeStatic(final Class<?> klass, final String methodName, final Expr[] args, final Method method) {
+        this.args = args;
+        this.dispatch = (method != null) ? new ResolvedDispatch(method)
+                : InvokeStaticFactory.CachedDispatchNodeGen.create(klass, methodName);
+    }
+
+    @ExplodeLoop
+    @Override
+    public Object execute(final VirtualFrame frame) {
+        final Object[] argVals = new Object[args.length];
+        for (int i = 0; i < args.length; ++i) {
+            argVals[i] = args[i].execute(frame);
+        }
+
+        return dispatch.execute(argVals);
+    }
+
+    static abstract class Dispatch extends Node {
+        abstract Object execute(Object[] args);
+    }
+
+    private static final class ResolvedDispatch extends Dispatch {
+        private final ResolvedMethod method;
+
+        ResolvedDispatch(final Method method) { this.method = ResolvedMethod.of(method); }
+
+        @Override
+        Object execute(final Object[] args) { return method.invoke(null, args); }
+    }
+
+    // Inline cache of the methods selected for the argument classes seen so far (just one if not overloaded):
+    static abstract class CachedDispatch extends Dispatch {
+        protected static final int INLINE_CACHE_SIZE = 3;
+
+        protected final Class<?> klass;
+        protected final String methodName;
+
+        protected CachedDispatch(final Class<?> klass, final String methodName) {
+            this.klass = klass;
+            this.methodName = methodName;
+        }
+
+        @Specialization(guards = "method.matches(args)", limit = "INLINE_CACHE_SIZE")
+        protected Object invokeCached(final Object[] args,
+                                      @Cached("statik(klass, methodName, args)") final ResolvedMethod method
+        ) {
+            return method.invoke(null, args);
+        }
+
+        @Specialization(replaces = "invokeCached")
+        @TruffleBoundary
+        protected Object invokeUncached(final Object[] args) {
+            return Reflector.invokeStaticMethod(klass, methodName, args);
+        }
+
+        protected static ResolvedMethod statik(final Class<?> klass, final String methodName, final Object[] args) {
+            return ResolvedMethod.statik(klass, methodName, args);
+        }
+    }
+}
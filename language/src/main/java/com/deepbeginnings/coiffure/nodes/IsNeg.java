@@ -0,0 +1,20 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `neg?`:
+public abstract class IsNeg extends UnaryOp {
+    public static Expr create(final Expr operand) { return IsNegNodeGen.create(operand); }
+
+    @Specialization
+    protected boolean isNegLong(final long x) { return x < 0; }
+
+    @Specialization
+    protected boolean isNegDouble(final double x) { return x < 0; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean isNeg(final Object x) { return Numbers.isNeg(x); }
+}
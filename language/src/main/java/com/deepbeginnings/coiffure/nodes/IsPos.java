@@ -0,0 +1,20 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `pos?`:
+public abstract class IsPos extends UnaryOp {
+    public static Expr create(final Expr operand) { return IsPosNodeGen.create(operand); }
+
+    @Specialization
+    protected boolean isPosLong(final long x) { return x > 0; }
+
+    @Specialization
+    protected boolean isPosDouble(final double x) { return x > 0; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean isPos(final Object x) { return Numbers.isPos(x); }
+}
@@ -0,0 +1,20 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `zero?`:
+public abstract class IsZero extends UnaryOp {
+    public static Expr create(final Expr operand) { return IsZeroNodeGen.create(operand); }
+
+    @Specialization
+    protected boolean isZeroLong(final long x) { return x == 0; }
+
+    @Specialization
+    protected boolean isZeroDouble(final double x) { return x == 0; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean isZero(final Object x) { return Numbers.isZero(x); }
+}
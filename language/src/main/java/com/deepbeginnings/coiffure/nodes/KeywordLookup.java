@@ -0,0 +1,70 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.IKeywordLookup;
+import clojure.lang.ILookup;
+import clojure.lang.ILookupThunk;
+import clojure.lang.Keyword;
+import clojure.lang.PersistentArrayMap;
+import clojure.lang.PersistentHashMap;
+import clojure.lang.RT;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `(:k target)` and `(:k target notFound)` with a constant keyword `:k`, i.e. what `Keyword.invoke` does but without
+// the call and with the common map types split out:
+@NodeChild(value = "target", type = Expr.class)
+@NodeChild(value = "notFound", type = Expr.class)
+@NodeField(name = "keyword", type = Keyword.class)
+public abstract class KeywordLookup extends Expr {
+    protected static final int INLINE_CACHE_SIZE = 3;
+
+    protected abstract Keyword getKeyword();
+
+    public static Expr create(final Keyword keyword, final Expr target, final Expr notFound) {
+        return KeywordLookupNodeGen.create(target, notFound, keyword);
+    }
+
+    // Keyword keys of array maps are found by an identity scan, which partially evaluates to a loop of reference
+    // comparisons against the constant keyword:
+    @Specialization
+    protected Object lookupArrayMap(final PersistentArrayMap map, final Object notFound) {
+        return map.valAt(getKeyword(), notFound);
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object lookupHashMap(final PersistentHashMap map, final Object notFound) {
+        return map.valAt(getKeyword(), notFound);
+    }
+
+    // Like `KeywordLookupSite`, but the thunk is cached per receiver class. Record field thunks never miss so
+    // `notFound` is not needed:
+    @Specialization(guards = {"target.getClass() == cachedClass", "thunk != null"}, limit = "INLINE_CACHE_SIZE")
+    protected Object lookupRecord(final IKeywordLookup target, final Object notFound,
+                                  @Cached("target.getClass()") final Class<?> cachedClass,
+                                  @Cached("lookupThunk(target)") final ILookupThunk thunk) {
+        return thunk.get(target);
+    }
+
+    @Specialization
+    @TruffleBoundary
+    protected Object lookup(final ILookup target, final Object notFound) {
+        return target.valAt(getKeyword(), notFound);
+    }
+
+    @Specialization(guards = "!isILookup(target)")
+    @TruffleBoundary
+    protected Object lookupGeneric(final Object target, final Object notFound) {
+        return RT.get(target, getKeyword(), notFound);
+    }
+
+    protected static boolean isILookup(final Object target) { return target instanceof ILookup; }
+
+    @TruffleBoundary
+    protected final ILookupThunk lookupThunk(final IKeywordLookup target) {
+        return target.getLookupThunk(getKeyword());
+    }
+}
@@ -0,0 +1,26 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `<`:
+public abstract class LessThan extends BinaryOp {
+    public static Expr create(final Expr left, final Expr right) { return LessThanNodeGen.create(left, right); }
+
+    @Specialization
+    protected boolean lessThanLongs(final long x, final long y) { return x < y; }
+
+    @Specialization
+    protected boolean lessThanDoubles(final double x, final double y) { return x < y; }
+
+    @Specialization
+    protected boolean lessThanLongDouble(final long x, final double y) { return x < y; }
+
+    @Specialization
+    protected boolean lessThanDoubleLong(final double x, final long y) { return x < y; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean lessThan(final Object x, final Object y) { return Numbers.lt(x, y); }
+}
@@ -0,0 +1,26 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `<=`:
+public abstract class LessThanOrEqual extends BinaryOp {
+    public static Expr create(final Expr left, final Expr right) { return LessThanOrEqualNodeGen.create(left, right); }
+
+    @Specialization
+    protected boolean lessThanOrEqualLongs(final long x, final long y) { return x <= y; }
+
+    @Specialization
+    protected boolean lessThanOrEqualDoubles(final double x, final double y) { return x <= y; }
+
+    @Specialization
+    protected boolean lessThanOrEqualLongDouble(final long x, final double y) { return x <= y; }
+
+    @Specialization
+    protected boolean lessThanOrEqualDoubleLong(final double x, final long y) { return x <= y; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean lessThanOrEqual(final Object x, final Object y) { return Numbers.lte(x, y); }
+}
@@ -8,12 +8,38 @@ import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.FrameSlotKind;
 import com.oracle.truffle.api.frame.VirtualFrame;
 
+// Stores long/double/boolean values unboxed until the slot sees some other type, after which it becomes (and stays)
+// an Object slot:
 @NodeField(name = "slot", type = FrameSlot.class)
 @NodeChild(value = "expr", type = Expr.class)
 public abstract class LocalDef extends Expr {
     protected abstract FrameSlot getSlot();
 
-    @Specialization
+    @Specialization(guards = "isKindOrIllegal(frame, LONG)")
+    protected long writeLong(final VirtualFrame frame, final long value) {
+        frame.getFrameDescriptor().setFrameSlotKind(getSlot(), FrameSlotKind.Long);
+
+        frame.setLong(getSlot(), value);
+        return value;
+    }
+
+    @Specialization(guards = "isKindOrIllegal(frame, DOUBLE)")
+    protected double writeDouble(final VirtualFrame frame, final double value) {
+        frame.getFrameDescriptor().setFrameSlotKind(getSlot(), FrameSlotKind.Double);
+
+        frame.setDouble(getSlot(), value);
+        return value;
+    }
+
+    @Specialization(guards = "isKindOrIllegal(frame, BOOLEAN)")
+    protected boolean writeBoolean(final VirtualFrame frame, final boolean value) {
+        frame.getFrameDescriptor().setFrameSlotKind(getSlot(), FrameSlotKind.Boolean);
+
+        frame.setBoolean(getSlot(), value);
+        return value;
+    }
+
+    @Specialization(replaces = {"writeLong", "writeDouble", "writeBoolean"})
     protected Object write(final VirtualFrame frame, final Object value) {
         frame.getFrameDescriptor().setFrameSlotKind(getSlot(), FrameSlotKind.Object);
 
@@ -21,5 +47,14 @@ public abstract class LocalDef extends Expr {
         return value;
     }
 
+    protected static final FrameSlotKind LONG = FrameSlotKind.Long;
+    protected static final FrameSlotKind DOUBLE = FrameSlotKind.Double;
+    protected static final FrameSlotKind BOOLEAN = FrameSlotKind.Boolean;
+
+    protected final boolean isKindOrIllegal(final VirtualFrame frame, final FrameSlotKind kind) {
+        final FrameSlotKind slotKind = frame.getFrameDescriptor().getFrameSlotKind(getSlot());
+        return slotKind == kind || slotKind == FrameSlotKind.Illegal;
+    }
+
     public abstract void executeWrite(VirtualFrame frame, Object value);
 }
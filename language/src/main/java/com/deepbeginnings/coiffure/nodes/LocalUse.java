@@ -1,5 +1,6 @@
 package com.deepbeginnings.coiffure.nodes;
 
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.NodeField;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.FrameSlot;
@@ -10,8 +11,31 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 public abstract class LocalUse extends Expr {
     protected abstract FrameSlot getSlot();
 
-    @Specialization
+    @Specialization(guards = "frame.isLong(getSlot())")
+    protected long readLong(final VirtualFrame frame) {
+        return FrameUtil.getLongSafe(frame, getSlot());
+    }
+
+    @Specialization(guards = "frame.isDouble(getSlot())")
+    protected double readDouble(final VirtualFrame frame) {
+        return FrameUtil.getDoubleSafe(frame, getSlot());
+    }
+
+    @Specialization(guards = "frame.isBoolean(getSlot())")
+    protected boolean readBoolean(final VirtualFrame frame) {
+        return FrameUtil.getBooleanSafe(frame, getSlot());
+    }
+
+    @Specialization(replaces = {"readLong", "readDouble", "readBoolean"})
     protected Object readObject(final VirtualFrame frame) {
+        if (!frame.isObject(getSlot())) {
+            // The slot was written as a primitive before `LocalDef` generalized it; box it once and for all:
+            CompilerDirectives.transferToInterpreter();
+            final Object value = frame.getValue(getSlot());
+            frame.setObject(getSlot(), value);
+            return value;
+        }
+
         return FrameUtil.getObjectSafe(frame, getSlot());
     }
 }
@@ -0,0 +1,17 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.RT;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// The coercion of a `^long` hinted local, param or return value, like `(long x)`:
+public abstract class LongCast extends UnaryOp {
+    public static Expr create(final Expr operand) { return LongCastNodeGen.create(operand); }
+
+    @Specialization
+    protected long castLong(final long x) { return x; }
+
+    @Specialization
+    @TruffleBoundary
+    protected long cast(final Object x) { return RT.longCast(x); }
+}
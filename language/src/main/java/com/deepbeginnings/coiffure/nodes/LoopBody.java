@@ -1,23 +1,17 @@
 package com.deepbeginnings.coiffure.nodes;
 
-import com.deepbeginnings.coiffure.RecurException;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RepeatingNode;
 
+// Any value other than `CONTINUE_LOOP_STATUS` (from `Recur`) is the value of the loop:
 final class LoopBody extends Node implements RepeatingNode {
     @Child private Expr body;
 
     LoopBody(final Expr body) { this.body = body; }
 
     @Override
-    public Object executeRepeatingWithValue(final VirtualFrame frame) {
-        try {
-            return body.execute(frame);
-        } catch (final RecurException exn) {
-            return CONTINUE_LOOP_STATUS;
-        }
-    }
+    public Object executeRepeatingWithValue(final VirtualFrame frame) { return body.execute(frame); }
 
     @Override
     public boolean executeRepeating(final VirtualFrame frame) { throw new AssertionError("unreachable"); }
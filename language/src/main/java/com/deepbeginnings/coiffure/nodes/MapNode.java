@@ -6,6 +6,7 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 public class MapNode extends Expr {
     @Children private Expr[] kvs;
+    private final Allocations allocations = new Allocations();
     
     public MapNode(final Expr[] kvs) {
         if ((kvs.length & 1) == 1) {
@@ -25,6 +26,7 @@ public class MapNode extends Expr {
             kvVals[j] = kvs[j].execute(frame);
         }
         
-        return RT.map(kvVals);
+        allocations.enter();
+        return allocations.allocated(RT.map(kvVals));
     }
 }
@@ -0,0 +1,36 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
+// A call of a lambda-lifted method, which needs no closure: the self arg is `null` and the clovers are passed as extra
+// args after the actual ones (see `ir.LambdaLifting`):
+public final class MethodCall extends Expr {
+    @Child private DirectCallNode callNode;
+    @Children private final Expr[] args;
+
+    public MethodCall(final MethodNode method, final Expr[] args) {
+        this.callNode = DirectCallNode.create(method.callTarget());
+        this.args = args;
+    }
+
+    @ExplodeLoop
+    @Override
+    public Object execute(final VirtualFrame frame) {
+        final Object[] argVals = new Object[args.length + 1];
+
+        for (int i = 0; i < args.length; ++i) {
+            argVals[i + 1] = args[i].execute(frame);
+        }
+
+        return callNode.call(argVals);
+    }
+
+    @Override
+    public boolean hasTag(final Class<? extends Tag> tag) {
+        return tag == StandardTags.CallTag.class || super.hasTag(tag);
+    }
+}
@@ -1,21 +1,53 @@
 package com.deepbeginnings.coiffure.nodes;
 
 import com.deepbeginnings.coiffure.Language;
+import com.deepbeginnings.coiffure.ir.IR;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.source.SourceSection;
 
 public final class MethodNode extends RootNode {
     private final int minArity;
     private final boolean isVariadic;
+    private final IR.Method inlinable; // nullable
+    private final String name; // nullable
+    private final SourceSection sourceSection; // nullable
 
     public MethodNode(final Language lang, final FrameDescriptor locals, final int minArity, final boolean isVariadic,
-                      final Expr body
+                      final Expr body, final IR.Method inlinable, final String name, final SourceSection sourceSection
     ) {
         super(lang, locals, body);
         this.minArity = minArity;
         this.isVariadic = isVariadic;
+        this.inlinable = inlinable;
+        this.name = name;
+        this.sourceSection = sourceSection;
     }
 
+    @Override
+    public String getName() { return (name != null) ? name : "fn"; }
+
+    @Override
+    public SourceSection getSourceSection() { return sourceSection; }
+
     public int getMinArity() { return minArity; }
 
     public boolean isVariadic() { return isVariadic; }
+
+    /** The IR of this, if calls to it may be inlined (see `ir.Inlining`), else `null`. */
+    public IR.Method getInlinable() { return inlinable; }
+
+    // The one call target of this method, shared by every closure over it so that call profiles accumulate:
+    public RootCallTarget callTarget() {
+        final RootCallTarget callTarget = getCallTarget();
+        return (callTarget != null) ? callTarget : createCallTarget();
+    }
+
+    @TruffleBoundary
+    private synchronized RootCallTarget createCallTarget() {
+        final RootCallTarget callTarget = getCallTarget();
+        return (callTarget != null) ? callTarget : Truffle.getRuntime().createCallTarget(this);
+    }
 }
@@ -0,0 +1,35 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `*` and (if promoting) `*'`:
+@NodeField(name = "promoting", type = boolean.class)
+public abstract class Multiply extends BinaryOp {
+    protected abstract boolean isPromoting();
+
+    public static Expr create(final boolean promoting, final Expr left, final Expr right) {
+        return MultiplyNodeGen.create(left, right, promoting);
+    }
+
+    @Specialization(rewriteOn = ArithmeticException.class)
+    protected long multiplyLongs(final long x, final long y) { return Math.multiplyExact(x, y); }
+
+    @Specialization
+    protected double multiplyDoubles(final double x, final double y) { return x * y; }
+
+    @Specialization
+    protected double multiplyLongDouble(final long x, final double y) { return x * y; }
+
+    @Specialization
+    protected double multiplyDoubleLong(final double x, final long y) { return x * y; }
+
+    // Also handles long overflow, by throwing or (if promoting) returning a BigInt:
+    @Specialization(replaces = "multiplyLongs")
+    @TruffleBoundary
+    protected Number multiply(final Object x, final Object y) {
+        return isPromoting() ? Numbers.multiplyP(x, y) : Numbers.multiply(x, y);
+    }
+}
@@ -0,0 +1,27 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `(- x)` and (if promoting) `(-' x)`:
+@NodeField(name = "promoting", type = boolean.class)
+public abstract class Negate extends UnaryOp {
+    protected abstract boolean isPromoting();
+
+    public static Expr create(final boolean promoting, final Expr operand) {
+        return NegateNodeGen.create(operand, promoting);
+    }
+
+    @Specialization(rewriteOn = ArithmeticException.class)
+    protected long negateLong(final long x) { return Math.negateExact(x); }
+
+    @Specialization
+    protected double negateDouble(final double x) { return -x; }
+
+    // Also handles long overflow, by throwing or (if promoting) returning a BigInt:
+    @Specialization(replaces = "negateLong")
+    @TruffleBoundary
+    protected Number negate(final Object x) { return isPromoting() ? Numbers.minusP(x) : Numbers.minus(x); }
+}
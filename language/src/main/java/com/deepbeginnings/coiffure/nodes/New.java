@@ -1,18 +1,29 @@
 package com.deepbeginnings.coiffure.nodes;
 
 import clojure.lang.Reflector;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+
+import java.lang.reflect.Constructor;
 
 public final class New extends Expr {
-    private final Class<?> klass;
     @Children private Expr[] args;
+    @Child private Dispatch dispatch;
+    private final Allocations allocations = new Allocations();
     
-    public static Expr create(final Class<?> klass, final Expr[] args) { return new New(klass, args); }
+    /** `constructor` is the one that `Analyzer` resolved from type hints or `null` to select it at run time. */
+    public static Expr create(final Class<?> klass, final Expr[] args, final Constructor<?> constructor) {
+        return new New(klass, args, constructor);
+    }
     
-    private New(final Class<?> klass, final Expr[] args) {
-        this.klass = klass;
+    private New(final Class<?> klass, final Expr[] args, final Constructor<?> constructor) {
         this.args = args;
+        this.dispatch = (constructor != null) ? new ResolvedDispatch(constructor)
+                : NewFactory.CachedDispatchNodeGen.create(klass);
     }
 
     @ExplodeLoop
@@ -23,6 +34,44 @@ public final class New extends Expr {
             argVals[i] = args[i].execute(frame);
         }
 
-        return Reflector.invokeConstructor(klass, argVals);
+        allocations.enter();
+        return allocations.allocated(dispatch.execute(argVals));
+    }
+
+    static abstract class Dispatch extends Node {
+        abstract Object execute(Object[] args);
+    }
+
+    private static final class ResolvedDispatch extends Dispatch {
+        private final ResolvedConstructor constructor;
+
+        ResolvedDispatch(final Constructor<?> constructor) { this.constructor = ResolvedConstructor.of(constructor); }
+
+        @Override
+        Object execute(final Object[] args) { return constructor.invoke(args); }
+    }
+
+    // Inline cache of the constructors selected for the argument classes seen so far (just one if not overloaded):
+    static abstract class CachedDispatch extends Dispatch {
+        protected static final int INLINE_CACHE_SIZE = 3;
+
+        protected final Class<?> klass;
+
+        protected CachedDispatch(final Class<?> klass) { this.klass = klass; }
+
+        @Specialization(guards = "constructor.matches(args)", limit = "INLINE_CACHE_SIZE")
+        protected Object newCached(final Object[] args,
+                                   @Cached("resolve(klass, args)") final ResolvedConstructor constructor
+        ) {
+            return constructor.invoke(args);
+        }
+
+        @Specialization(replaces = "newCached")
+        @TruffleBoundary
+        protected Object newUncached(final Object[] args) { return Reflector.invokeConstructor(klass, args); }
+
+        protected static ResolvedConstructor resolve(final Class<?> klass, final Object[] args) {
+            return ResolvedConstructor.create(klass, args);
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `==`:
+public abstract class NumEquiv extends BinaryOp {
+    public static Expr create(final Expr left, final Expr right) { return NumEquivNodeGen.create(left, right); }
+
+    @Specialization
+    protected boolean numEquivLongs(final long x, final long y) { return x == y; }
+
+    @Specialization
+    protected boolean numEquivDoubles(final double x, final double y) { return x == y; }
+
+    @Specialization
+    protected boolean numEquivLongDouble(final long x, final double y) { return x == y; }
+
+    @Specialization
+    protected boolean numEquivDoubleLong(final double x, final long y) { return x == y; }
+
+    @Specialization
+    @TruffleBoundary
+    protected boolean numEquiv(final Object x, final Object y) { return Numbers.equiv(x, y); }
+}
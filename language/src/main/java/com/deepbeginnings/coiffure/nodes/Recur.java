@@ -1,9 +1,11 @@
 package com.deepbeginnings.coiffure.nodes;
 
-import com.deepbeginnings.coiffure.RecurException;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.RepeatingNode;
 
+// `recur` is only allowed in tail position, so the tail nodes in between (`If`, `Do`) just return the continue status
+// to the enclosing `LoopBody` as if it were the loop body value:
 public final class Recur extends Expr {
     @Children private Expr[] argDefs;
 
@@ -12,7 +14,7 @@ public final class Recur extends Expr {
     @ExplodeLoop
     @Override
     public Object execute(final VirtualFrame frame) {
-        for (final Expr argDef : argDefs) { argDef.execute(frame); }
-        throw RecurException.INSTANCE;
+        for (final Expr argDef : argDefs) { argDef.executeVoid(frame); }
+        return RepeatingNode.CONTINUE_LOOP_STATUS;
     }
 }
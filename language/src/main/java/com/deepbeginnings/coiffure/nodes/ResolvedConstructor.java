@@ -0,0 +1,34 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Reflector;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import java.lang.reflect.Constructor;
+
+// Like `ResolvedMethod` but for constructors:
+final class ResolvedConstructor {
+    private final Constructor<?> constructor;
+    @CompilationFinal(dimensions = 1) private final Class<?>[] argClasses;
+
+    @TruffleBoundary
+    static ResolvedConstructor create(final Class<?> klass, final Object[] args) {
+        return new ResolvedConstructor(Reflector.findConstructor(klass, args),
+                (Reflector.getConstructors(klass, args.length).size() > 1) ? ResolvedMethod.argClasses(args) : null);
+    }
+
+    static ResolvedConstructor of(final Constructor<?> constructor) {
+        return new ResolvedConstructor(constructor, null);
+    }
+
+    private ResolvedConstructor(final Constructor<?> constructor, final Class<?>[] argClasses) {
+        this.constructor = constructor;
+        this.argClasses = argClasses;
+    }
+
+    /** Would `args` select this constructor too? */
+    boolean matches(final Object[] args) { return ResolvedMethod.matches(argClasses, args); }
+
+    @TruffleBoundary
+    Object invoke(final Object[] args) { return Reflector.invokeConstructor(constructor, args); }
+}
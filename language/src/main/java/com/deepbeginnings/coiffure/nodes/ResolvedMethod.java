@@ -0,0 +1,63 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Reflector;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+// A method that `Reflector` selected for some call, along with the argument classes that the selection depended on
+// (`null` if the method is not overloaded at that arity so any args will select it):
+final class ResolvedMethod {
+    private final Method method;
+    @CompilationFinal(dimensions = 1) private final Class<?>[] argClasses;
+
+    @TruffleBoundary
+    static ResolvedMethod instance(final Object receiver, final String methodName, final Object[] args) {
+        final List<Method> overloads = Reflector.getMethods(receiver.getClass(), args.length, methodName, false);
+        return new ResolvedMethod(Reflector.findInstanceMethod(receiver, methodName, args),
+                (overloads.size() > 1) ? argClasses(args) : null);
+    }
+
+    @TruffleBoundary
+    static ResolvedMethod statik(final Class<?> klass, final String methodName, final Object[] args) {
+        final List<Method> overloads = Reflector.getMethods(klass, args.length, methodName, true);
+        return new ResolvedMethod(Reflector.findStaticMethod(klass, methodName, args),
+                (overloads.size() > 1) ? argClasses(args) : null);
+    }
+
+    /** A method that was resolved without looking at args (i.e. at analysis time). */
+    static ResolvedMethod of(final Method method) { return new ResolvedMethod(method, null); }
+
+    private ResolvedMethod(final Method method, final Class<?>[] argClasses) {
+        this.method = method;
+        this.argClasses = argClasses;
+    }
+
+    static Class<?>[] argClasses(final Object[] args) {
+        final Class<?>[] classes = new Class<?>[args.length];
+        for (int i = 0; i < args.length; ++i) {
+            classes[i] = (args[i] != null) ? args[i].getClass() : null;
+        }
+        return classes;
+    }
+
+    /** Would `args` select this method too? */
+    boolean matches(final Object[] args) { return matches(argClasses, args); }
+
+    @ExplodeLoop
+    static boolean matches(final Class<?>[] argClasses, final Object[] args) {
+        if (argClasses == null) { return true; }
+
+        for (int i = 0; i < argClasses.length; ++i) {
+            final Class<?> argClass = (args[i] != null) ? args[i].getClass() : null;
+            if (argClass != argClasses[i]) { return false; }
+        }
+        return true;
+    }
+
+    @TruffleBoundary
+    Object invoke(final Object receiver, final Object[] args) { return Reflector.invokeMethod(method, receiver, args); }
+}
@@ -0,0 +1,32 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.ArraySeq;
+import clojure.lang.ISeq;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+// The rest param of a variadic method. Callers pass all the args flat in the call target arguments, so the rest seq
+// is just a view of their tail (or `nil` if there are no rest args):
+public final class RestArgUse extends Expr {
+    final int index;
+
+    public RestArgUse(final int index) { this.index = index; }
+
+    @Override
+    public Object execute(final VirtualFrame frame) {
+        final Object[] args = frame.getArguments();
+
+        if (args.length == index + 1 && args[index] instanceof RestSeq) {
+            return ((RestSeq) args[index]).seq;
+        } else {
+            return ArraySeq.createTail(args, index);
+        }
+    }
+
+    /** Rest args that must not be spread into the arguments array, because they are a lazy (maybe infinite) seq. See
+     * `Closure.applyTo`. */
+    public static final class RestSeq {
+        final ISeq seq;
+
+        public RestSeq(final ISeq seq) { this.seq = seq; }
+    }
+}
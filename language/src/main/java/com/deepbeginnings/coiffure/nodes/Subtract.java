@@ -0,0 +1,35 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import clojure.lang.Numbers;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+
+// `-` and (if promoting) `-'`:
+@NodeField(name = "promoting", type = boolean.class)
+public abstract class Subtract extends BinaryOp {
+    protected abstract boolean isPromoting();
+
+    public static Expr create(final boolean promoting, final Expr left, final Expr right) {
+        return SubtractNodeGen.create(left, right, promoting);
+    }
+
+    @Specialization(rewriteOn = ArithmeticException.class)
+    protected long subtractLongs(final long x, final long y) { return Math.subtractExact(x, y); }
+
+    @Specialization
+    protected double subtractDoubles(final double x, final double y) { return x - y; }
+
+    @Specialization
+    protected double subtractLongDouble(final long x, final double y) { return x - y; }
+
+    @Specialization
+    protected double subtractDoubleLong(final double x, final long y) { return x - y; }
+
+    // Also handles long overflow, by throwing or (if promoting) returning a BigInt:
+    @Specialization(replaces = "subtractLongs")
+    @TruffleBoundary
+    protected Number subtract(final Object x, final Object y) {
+        return isPromoting() ? Numbers.minusP(x, y) : Numbers.minus(x, y);
+    }
+}
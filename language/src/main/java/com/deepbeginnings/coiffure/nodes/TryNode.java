@@ -27,7 +27,7 @@ public class TryNode extends Expr {
     public Object execute(final VirtualFrame frame) {
         try {
             return body.execute(frame);
-        } catch (final Throwable t) { // NOTE: Can't recur across try so RecurException requires no special treatment.
+        } catch (final Throwable t) { // NOTE: Can't recur across try so the body never returns `Recur`'s continue status.
             for (final CatchNode catchNode : catches) {
                 if (catchNode.matches(t)) {
                     return catchNode.execute(frame, t);
@@ -37,7 +37,7 @@ public class TryNode extends Expr {
             throw t; // No matching catches, so rethrow
         } finally {
             if (finallyExpr != null) {
-                finallyExpr.execute(frame);
+                finallyExpr.executeVoid(frame);
             }
         }
     }
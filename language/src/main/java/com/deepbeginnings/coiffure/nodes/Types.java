@@ -0,0 +1,7 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import com.oracle.truffle.api.dsl.TypeSystem;
+
+// The primitive types that nodes can produce unboxed via `Expr.executeLong` etc.:
+@TypeSystem({long.class, double.class, boolean.class})
+public abstract class Types {}
@@ -0,0 +1,6 @@
+package com.deepbeginnings.coiffure.nodes;
+
+import com.oracle.truffle.api.dsl.NodeChild;
+
+@NodeChild(value = "operand", type = Expr.class)
+public abstract class UnaryOp extends Expr {}
@@ -6,6 +6,7 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 public final class VectorNode extends Expr {
     @Children private Expr[] elems;
+    private final Allocations allocations = new Allocations();
     
     public VectorNode(final Expr[] elems) { this.elems = elems; }
 
@@ -18,6 +19,7 @@ public final class VectorNode extends Expr {
             elemVals[i] = elems[i].execute(frame);
         }
         
-        return RT.vector(elemVals);
+        allocations.enter();
+        return allocations.allocated(RT.vector(elemVals));
     }
 }
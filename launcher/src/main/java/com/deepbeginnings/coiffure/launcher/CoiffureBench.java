@@ -0,0 +1,71 @@
+package com.deepbeginnings.coiffure.launcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+
+/**
+ * Steady-state benchmark driver: loads a benchmark file and then repeatedly evaluates an expression (by default
+ * `(bench)`), printing the wall clock time of each iteration after the warmup iterations. When the JVM supports it,
+ * the bytes allocated by each iteration are printed too, so that steady-state allocation can be checked.
+ *
+ * Usage: `CoiffureBench FILE [EXPR] [WARMUP-ITERATIONS] [ITERATIONS]`
+ *
+ * Language options can be set with system properties, e.g. `-Dpolyglot.coiffure.InlineSize=20`.
+ */
+public final class CoiffureBench {
+    private static final String LANG = "coiffure";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CoiffureBench FILE [EXPR] [WARMUP-ITERATIONS] [ITERATIONS]");
+            System.exit(2);
+        }
+
+        final File file = new File(args[0]);
+        final String expr = (args.length > 1) ? args[1] : "(bench)";
+        final int warmup = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        final int iterations = (args.length > 3) ? Integer.parseInt(args[3]) : 10;
+
+        final Context context = Context.newBuilder(LANG).allowExperimentalOptions(true).build();
+        context.eval(Source.newBuilder(LANG, file).build());
+        final Source run = Source.create(LANG, expr);
+
+        for (int i = 0; i < warmup; ++i) { context.eval(run); }
+
+        long total = 0;
+        long totalAllocated = 0;
+        for (int i = 0; i < iterations; ++i) {
+            final long startAllocated = allocatedBytes();
+            final long start = System.nanoTime();
+            context.eval(run);
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = allocatedBytes() - startAllocated;
+            total += elapsed;
+            totalAllocated += allocated;
+            System.out.printf("%s: iteration %d: %.3f ms%s%n", file.getName(), i, elapsed / 1e6,
+                    allocationReport(allocated));
+        }
+        System.out.printf("%s: average: %.3f ms%s%n", file.getName(), total / 1e6 / iterations,
+                allocationReport(totalAllocated / iterations));
+    }
+
+    /** Bytes allocated by the current thread so far or -1 if that is not available. */
+    private static long allocatedBytes() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean threads_ = (com.sun.management.ThreadMXBean) threads;
+            if (threads_.isThreadAllocatedMemorySupported() && threads_.isThreadAllocatedMemoryEnabled()) {
+                return threads_.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static String allocationReport(final long allocated) {
+        return (allocated >= 0) ? String.format(", %d bytes allocated", allocated) : "";
+    }
+}
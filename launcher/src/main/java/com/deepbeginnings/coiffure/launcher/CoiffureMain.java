@@ -1,19 +1,32 @@
 package com.deepbeginnings.coiffure.launcher;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Source;
 
+/**
+ * `coiffure [FILE...]`: loads the files in order or, without any, starts a REPL. Also the entry point of the native
+ * image that native/make_native.sh builds.
+ */
 public final class CoiffureMain {
     private static final String LANG = "coiffure";
 
     public static void main(String[] args) throws IOException {
         final Context context = Context.newBuilder(LANG)
                 .in(System.in).out(System.out)
+                .allowExperimentalOptions(true).allowIO(true)
                 .build();
 
+        if (args.length > 0) {
+            for (final String path : args) {
+                context.eval(Source.newBuilder(LANG, new File(path)).build());
+            }
+            return;
+        }
+
         while (true) {
             try {
                 System.out.print("> ");
@@ -0,0 +1,99 @@
+package com.deepbeginnings.coiffure.launcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+
+/**
+ * Reader throughput benchmark: generates a file of SIZE MB of quoted code-shaped forms (lists, vectors, maps, symbols,
+ * keywords, strings with and without escapes and numbers), loads it repeatedly in one context and prints the MB/s of
+ * the read phase of each load, as reported by the `Startup` log (so macroexpansion, analysis etc. are excluded).
+ *
+ * Usage: `CoiffureReaderBench [SIZE] [WARMUP-ITERATIONS] [ITERATIONS]`
+ */
+public final class CoiffureReaderBench {
+    private static final String LANG = "coiffure";
+    private static final Pattern READ_TIME = Pattern.compile(" read ([0-9]+[.,][0-9]+) ms");
+
+    public static void main(String[] args) throws IOException {
+        final int megabytes = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+        final int warmup = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        final int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+
+        final File file = File.createTempFile("coiffure-reader-bench", ".clj");
+        file.deleteOnExit();
+        generate(file, megabytes * 1024L * 1024L);
+        final double size = file.length() / (1024.0 * 1024.0);
+
+        final List<Double> readTimes = Collections.synchronizedList(new ArrayList<>());
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                final Matcher matcher = READ_TIME.matcher(record.getMessage());
+                if (matcher.find()) { readTimes.add(Double.parseDouble(matcher.group(1).replace(',', '.'))); }
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        };
+        final Context context = Context.newBuilder(LANG).allowExperimentalOptions(true)
+                .option("log.coiffure.com.deepbeginnings.coiffure.Startup.level", "FINE")
+                .logHandler(handler)
+                .build();
+
+        final List<Double> throughputs = new ArrayList<>();
+        for (int i = 0; i < warmup + iterations; ++i) {
+            readTimes.clear();
+            // Uncached so that every iteration actually parses it:
+            context.eval(Source.newBuilder(LANG, file).cached(false).build());
+            if (readTimes.isEmpty()) {
+                System.err.println("No read time was logged");
+                System.exit(1);
+            }
+
+            final double millis = readTimes.get(0);
+            final double throughput = size / (millis / 1e3);
+            if (i >= warmup) {
+                throughputs.add(throughput);
+                System.out.printf("%.1f MB: iteration %d: read %.3f ms, %.1f MB/s%n", size, i - warmup, millis,
+                        throughput);
+            }
+        }
+        Collections.sort(throughputs);
+        System.out.printf("%.1f MB: median: %.1f MB/s%n", size, throughputs.get(throughputs.size() / 2));
+    }
+
+    // At least `bytes` of ASCII toplevel forms, ending in `0` to get an interop value:
+    private static void generate(final File file, final long bytes) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            long written = 0;
+            for (int i = 0; written < bytes; ++i) {
+                final String form = String.format(
+                        "'(defn f-%d\n"
+                                + "   \"Computes the %dth thing.\"\n"
+                                + "   [a b & more] ; ignored\n"
+                                + "   (let [x {:key-%d \"a \\\"string\\\"\\n\" :n %d :v [a b %d]}]\n"
+                                + "     (if (< a b) [a b :kw/name %d] (recur (inc a) (clojure.core/dec b)))))\n\n",
+                        i, i, i % 100, i, 17 * i, i % 7);
+                out.print(form);
+                written += form.length();
+            }
+            out.println("0");
+        }
+    }
+}
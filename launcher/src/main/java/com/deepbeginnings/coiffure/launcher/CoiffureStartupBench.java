@@ -0,0 +1,210 @@
+package com.deepbeginnings.coiffure.launcher;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+
+/**
+ * Cold-start benchmark driver: runs each iteration in a fresh JVM (with the same classpath and `polyglot.*` system
+ * properties as this one) that creates a context, which loads clojure.core, and then loads a file. Prints the time
+ * from JVM start to `main`, the context initialization and the file load of each run and their medians.
+ *
+ * Usage: `CoiffureStartupBench (FILE | --generated FNS) [RUNS [LAUNCHER...]]`
+ *
+ * `--generated FNS` loads a namespace of FNS small fns (e.g. 200) that is generated into a temporary file, see
+ * `generate`.
+ *
+ * With LAUNCHERs (e.g. `./sl` for JVM mode and `native/coiffurenative` for the native image with its pre-initialized
+ * context) instead runs `LAUNCHER FILE` RUNS times for each and prints the wall-clock times of the whole processes,
+ * which is the only way to compare them.
+ *
+ * For a per-phase breakdown of the loads (read, macroexpand, analyze...) add
+ * `-Dpolyglot.log.coiffure.com.deepbeginnings.coiffure.Startup.level=FINE`.
+ */
+public final class CoiffureStartupBench {
+    private static final String LANG = "coiffure";
+    private static final String ONCE = "--once";
+    private static final String GENERATED = "--generated";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 2 && args[0].equals(GENERATED)) {
+            final File file = File.createTempFile("coiffure-startup-bench", ".clj");
+            file.deleteOnExit();
+            generate(file, Integer.parseInt(args[1]));
+
+            final String[] rest = Arrays.copyOfRange(args, 1, args.length);
+            rest[0] = file.getPath();
+            args = rest;
+        }
+
+        if (args.length >= 2 && args[0].equals(ONCE)) {
+            runOnce(new File(args[1]));
+        } else if (args.length > 2) {
+            runLaunchers(args[0], Integer.parseInt(args[1]), Arrays.copyOfRange(args, 2, args.length));
+        } else if (args.length >= 1) {
+            final int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+            runAll(args[0], runs);
+        } else {
+            System.err.println("Usage: CoiffureStartupBench (FILE | --generated FNS) [RUNS [LAUNCHER...]]");
+            System.exit(2);
+        }
+    }
+
+    // In the child JVM: print the timings as `jvm context load` (in ms) on one line.
+    private static void runOnce(final File file) throws IOException {
+        final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        final double toMain = System.currentTimeMillis() - jvmStartMillis;
+
+        long start = System.nanoTime();
+        // IO for `-Dpolyglot.coiffure.AnalysisCache=DIR`:
+        final Context context = Context.newBuilder(LANG).allowExperimentalOptions(true).allowIO(true).build();
+        context.initialize(LANG);
+        final long initialized = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        context.eval(Source.newBuilder(LANG, file).build());
+        final long loaded = System.nanoTime() - start;
+
+        System.out.printf("%.3f %.3f %.3f%n", toMain, initialized / 1e6, loaded / 1e6);
+    }
+
+    private static void runAll(final String file, final int runs) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (final String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("polyglot.") || name.startsWith("graalvm.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                CoiffureStartupBench.class.getName(), ONCE, file));
+
+        final List<Double> jvm = new ArrayList<>();
+        final List<Double> init = new ArrayList<>();
+        final List<Double> load = new ArrayList<>();
+        final String name = new File(file).getName();
+        for (int i = 0; i < runs; ++i) {
+            final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            String result = null;
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                for (String line; (line = out.readLine()) != null; ) { result = line; }
+            }
+            if (process.waitFor() != 0 || result == null) {
+                System.err.println("Run " + i + " failed");
+                System.exit(1);
+            }
+
+            final String[] times = result.trim().split(" ");
+            jvm.add(Double.parseDouble(times[0]));
+            init.add(Double.parseDouble(times[1]));
+            load.add(Double.parseDouble(times[2]));
+            System.out.printf("%s: run %d: JVM %s ms, context %s ms, load %s ms%n", name, i, times[0], times[1],
+                    times[2]);
+        }
+        System.out.printf("%s: median: JVM %.3f ms, context %.3f ms, load %.3f ms%n", name, median(jvm), median(init),
+                median(load));
+    }
+
+    private static void runLaunchers(final String file, final int runs, final String[] launchers)
+            throws IOException, InterruptedException {
+        final List<String> medians = new ArrayList<>();
+        for (final String launcher : launchers) {
+            final List<Double> times = new ArrayList<>();
+            for (int i = 0; i < runs; ++i) {
+                final long start = System.nanoTime();
+                final Process process = new ProcessBuilder(launcher, file)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    while (out.readLine() != null) {} // Discard
+                }
+                if (process.waitFor() != 0) {
+                    System.err.println(launcher + ": run " + i + " failed");
+                    System.exit(1);
+                }
+                final double time = (System.nanoTime() - start) / 1e6;
+
+                times.add(time);
+                System.out.printf("%s: run %d: %.3f ms%n", launcher, i, time);
+            }
+            medians.add(String.format("%s: median %.3f ms", launcher, median(times)));
+        }
+        for (final String median : medians) { System.out.println(median); }
+    }
+
+    // A large namespace of `fns` small fns with a mix of special forms, interop and literals, so that reading, analysis
+    // and lowering dominate rather than execution. The fns do not call each other, so the final loop that calls each
+    // once (to check that everything got defined) does not get any deeper with more of them:
+    private static void generate(final File file, final int fns) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.print("(def step-0 (fn* ([x y] (+ x y))))\n");
+            for (int n = 1; n < fns; ++n) {
+                out.print("\n");
+                switch (n % 4) {
+                case 1:
+                    out.printf("(def step-%d\n"
+                            + "  (fn* ([x y]\n"
+                            + "        (loop [i 0 acc x]\n"
+                            + "          (if (< i 3)\n"
+                            + "            (recur (inc i) (+ acc (* i y)))\n"
+                            + "            acc)))))\n", n);
+                    break;
+                case 2:
+                    out.printf("(def step-%d\n"
+                            + "  (fn* ([x] (step-%d x 1))\n"
+                            + "       ([x y]\n"
+                            + "        (let* [m {:x x :y y :n %d}\n"
+                            + "               v [x y (:n m)]]\n"
+                            + "          (+ (:x m) (+ (:y m) (. (. v (toString)) (length))))))))\n", n, n, n);
+                    break;
+                case 3:
+                    out.printf("(def step-%d\n"
+                            + "  (fn* ([x y]\n"
+                            + "        (let* [s (. (. clojure.lang.Numbers (add x y)) (toString))\n"
+                            + "               f (fn* ([z] (+ z %d)))]\n"
+                            + "          (+ (f (. s (length))) y)))))\n", n, n);
+                    break;
+                default:
+                    out.printf("(def step-%d\n"
+                            + "  (fn* ([x y]\n"
+                            + "        (let* [a (+ x %d)\n"
+                            + "               b (* y 2)]\n"
+                            + "          (if (< a b)\n"
+                            + "            a\n"
+                            + "            (- a b))))))\n", n, n);
+                    break;
+                }
+            }
+
+            out.print("\n(def steps\n  [");
+            for (int n = 0; n < fns; ++n) {
+                out.print((n == 0) ? "" : (n % 8 == 0) ? "\n   " : " ");
+                out.printf("step-%d", n);
+            }
+            out.print("])\n");
+            out.printf("\n(loop [i 0 acc 0]\n"
+                    + "  (if (< i %d)\n"
+                    + "    (recur (inc i) (+ acc ((. steps (nth i)) 1 2)))\n"
+                    + "    acc))\n", fns);
+        }
+    }
+
+    private static double median(final List<Double> xs) {
+        final List<Double> sorted = new ArrayList<>(xs);
+        Collections.sort(sorted);
+        final int n = sorted.size();
+        return (n % 2 == 1) ? sorted.get(n / 2) : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2;
+    }
+}
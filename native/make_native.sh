@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+#
+# Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+# DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+#
+# The Universal Permissive License (UPL), Version 1.0
+#
+# Subject to the condition set forth below, permission is hereby granted to any
+# person obtaining a copy of this software, associated documentation and/or
+# data (collectively the "Software"), free of charge and under any and all
+# copyright rights in the Software, and any and all patent rights owned or
+# freely licensable by each licensor hereunder covering either (i) the
+# unmodified Software as contributed to or provided by such licensor, or (ii)
+# the Larger Works (as defined below), to deal in both
+#
+# (a) the Software, and
+#
+# (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+# one is included with the Software each a "Larger Work" to which the Software
+# is contributed by such licensors),
+#
+# without restriction, including without limitation the rights to copy, create
+# derivative works of, display, perform, and distribute the Software and make,
+# use, sell, offer for sale, import, export, have made, and have sold the
+# Software and the Larger Work(s), and to sublicense the foregoing rights on
+# either these or other terms.
+#
+# This license is subject to the following condition:
+#
+# The above copyright notice and either this complete permission notice or at a
+# minimum a reference to the UPL must be included in all copies or substantial
+# portions of the Software.
+#
+# THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+# IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+# FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+# AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+# LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+# OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+# SOFTWARE.
+#
+
+# Builds `coiffurenative`, a native image of `CoiffureMain` with a pre-initialized context: clojure.core (its
+# namespace, vars, keywords, symbols and the nodes and call targets of its analyzed code) is loaded while building the
+# image and stored in the image heap, so a process only has to patch it (see `Language.patchContext`).
+
+if [[ $COIFFURE_BUILD_NATIVE == "false" ]]; then
+    echo "Skipping the native image build because COIFFURE_BUILD_NATIVE is set to false."
+    exit 0
+fi
+if [[ ! -x "$JAVA_HOME/bin/native-image" ]]; then
+    echo "Could not find native-image in \$JAVA_HOME. Install it with \`gu install native-image\` or set COIFFURE_BUILD_NATIVE=false."
+    exit 1
+fi
+
+"$JAVA_HOME"/bin/native-image \
+    --macro:truffle --no-fallback --initialize-at-build-time \
+    -H:+ReportExceptionStackTraces \
+    -Dpolyglot.image-build-time.PreinitializeContexts=coiffure \
+    -cp ../language/target/coiffure.jar:../launcher/target/sl-launcher.jar \
+    com.deepbeginnings.coiffure.launcher.CoiffureMain \
+    coiffurenative